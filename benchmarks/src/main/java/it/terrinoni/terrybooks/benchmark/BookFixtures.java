@@ -0,0 +1,81 @@
+package it.terrinoni.terrybooks.benchmark;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:19.
+ */
+
+import it.terrinoni.terrybooks.model.Book;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fixtures shared by the benchmarks; books are generated from a fixed seed, so every run measures
+ * the same data.
+ */
+public final class BookFixtures {
+
+  /**
+   * Number of distinct authors of the generated books.
+   */
+  public static final int AUTHORS = 100;
+
+  private static final long SEED = 42L;
+  private static final String[] WORDS = {"the", "lost", "garden", "of", "winter", "river",
+      "silent", "city", "night", "stone", "house", "fire", "song", "empire", "shadow", "sea"};
+
+  private BookFixtures() {
+  }
+
+  /**
+   * Generate a list of books with realistic title, summary and note sizes.
+   *
+   * @param size number of books to be generated
+   *
+   * @return the generated books, ordered by ISBN
+   */
+  public static List<Book> books(int size) {
+    Random random = new Random(SEED);
+    List<Book> books = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      books.add(new Book(isbn(i), text(random, 4), author(i % AUTHORS),
+          new Date(946684800000L + random.nextInt(Integer.MAX_VALUE) * 10L),
+          text(random, 400), text(random, 300)));
+    }
+    return books;
+  }
+
+  /**
+   * Build the ISBN of the i-th generated book.
+   *
+   * @param i position of the book
+   *
+   * @return the ISBN of the book
+   */
+  public static String isbn(int i) {
+    return String.format("978%010d", i);
+  }
+
+  /**
+   * Build the author of the i-th generated book.
+   *
+   * @param i position of the author
+   *
+   * @return the author name
+   */
+  public static String author(int i) {
+    return "Author " + i;
+  }
+
+  private static String text(Random random, int words) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < words; i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      sb.append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,101 @@
+package it.terrinoni.terrybooks.benchmark;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:19.
+ */
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.DBRef;
+import it.terrinoni.terrybooks.model.Book;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.convert.DbRefProxyHandler;
+import org.springframework.data.mongodb.core.convert.DbRefResolver;
+import org.springframework.data.mongodb.core.convert.DbRefResolverCallback;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+
+/**
+ * Mongo mapping of books, i.e. the conversion between the book model and the stored document
+ * performed by the Mongo template on every read and write.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+  private MappingMongoConverter converter;
+  private Book book;
+  private DBObject document;
+
+  @Setup
+  public void setup() throws Exception {
+    MongoMappingContext mappingContext = new MongoMappingContext();
+    mappingContext.setInitialEntitySet(Collections.singleton(Book.class));
+    mappingContext.afterPropertiesSet();
+
+    converter = new MappingMongoConverter(new UnsupportedDbRefResolver(), mappingContext);
+    converter.afterPropertiesSet();
+
+    book = BookFixtures.books(1).get(0);
+    document = new BasicDBObject();
+    converter.write(book, document);
+  }
+
+  @Benchmark
+  public DBObject writeBook() {
+    DBObject res = new BasicDBObject();
+    converter.write(book, res);
+    return res;
+  }
+
+  @Benchmark
+  public Book readBook() {
+    return converter.read(Book.class, document);
+  }
+
+  /**
+   * The book model has no references, so they are never resolved.
+   */
+  private static class UnsupportedDbRefResolver implements DbRefResolver {
+
+    @Override
+    public Object resolveDbRef(MongoPersistentProperty property, DBRef dbref,
+        DbRefResolverCallback callback, DbRefProxyHandler proxyHandler) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DBRef createDbRef(org.springframework.data.mongodb.core.mapping.DBRef annotation,
+        MongoPersistentEntity<?> entity, Object id) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DBObject fetch(DBRef dbRef) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<DBObject> bulkFetch(List<DBRef> dbRefs) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package it.terrinoni.terrybooks.benchmark;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:19.
+ */
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import it.terrinoni.terrybooks.config.JacksonConfig;
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BookField;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * JSON and Smile serialization of books, performed with the same object mapper configuration of the
+ * application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+  @Param({"100", "10000"})
+  private int size;
+
+  @Param({"json", "smile"})
+  private String format;
+
+  private ObjectMapper objectMapper;
+  private ObjectWriter projectedWriter;
+  private Book book;
+  private List<Book> books;
+  private byte[] bookJson;
+
+  @Setup
+  public void setup() throws Exception {
+    JacksonConfig config = new JacksonConfig();
+    Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+        .modulesToInstall(config.afterburnerModule());
+    config.bookFieldsCustomizer().customize(builder);
+    objectMapper = "smile".equals(format)
+        ? new ObjectMapper(new SmileFactory()) : new ObjectMapper();
+    builder.configure(objectMapper);
+    projectedWriter = objectMapper.writer(JacksonConfig.bookFieldsFilter(
+        EnumSet.of(BookField.ISBN, BookField.TITLE, BookField.AUTHOR, BookField.PUBLISH_DATE)));
+
+    books = BookFixtures.books(size);
+    book = books.get(0);
+    bookJson = objectMapper.writeValueAsBytes(book);
+  }
+
+  @Benchmark
+  public byte[] serializeBook() throws Exception {
+    return objectMapper.writeValueAsBytes(book);
+  }
+
+  @Benchmark
+  public Book deserializeBook() throws Exception {
+    return objectMapper.readValue(bookJson, Book.class);
+  }
+
+  @Benchmark
+  public byte[] serializeBookList() throws Exception {
+    return objectMapper.writeValueAsBytes(books);
+  }
+
+  @Benchmark
+  public byte[] serializeProjectedBookList() throws Exception {
+    return projectedWriter.writeValueAsBytes(books);
+  }
+}
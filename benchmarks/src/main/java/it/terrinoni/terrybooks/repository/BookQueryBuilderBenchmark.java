@@ -0,0 +1,75 @@
+package it.terrinoni.terrybooks.repository;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:19.
+ */
+
+import it.terrinoni.terrybooks.model.BookFilter;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Dispatch of the book list query parameters into a single query through the query builder; the
+ * benchmark lives in the repository package, since the builder is not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookQueryBuilderBenchmark {
+
+  @Param({"empty", "author", "title", "all"})
+  private String filterKind;
+
+  private BookQueryBuilder queryBuilder;
+  private BookFilter filter;
+
+  @Setup
+  public void setup() {
+    // Same leading fields of the index set declared in the application properties
+    queryBuilder = new BookQueryBuilder(new HashSet<>(
+        Arrays.asList("_id", "authors", "publish_date", "last_modified_at", "title_trigrams",
+            "created_at")));
+
+    filter = new BookFilter();
+    switch (filterKind) {
+      case "author":
+        filter.setAuthor("Author 1");
+        break;
+      case "title":
+        filter.setTitleLike("winter garden");
+        break;
+      case "all":
+        filter.setIsbnPrefix("978000");
+        filter.setAuthor("Author 1");
+        filter.setTitleLike("winter garden");
+        filter.setSummaryLike("river");
+        filter.setPublishDateAfter(new Date(0L));
+        filter.setCreatedAtBefore(new Date());
+        break;
+      default:
+        break;
+    }
+  }
+
+  @Benchmark
+  public Query build() {
+    return queryBuilder.build(filter);
+  }
+}
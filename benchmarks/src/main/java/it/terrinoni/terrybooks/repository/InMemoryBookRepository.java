@@ -0,0 +1,162 @@
+package it.terrinoni.terrybooks.repository;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:19.
+ */
+
+import it.terrinoni.terrybooks.model.Authors;
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BookFilter;
+import it.terrinoni.terrybooks.model.BulkItemResult;
+import it.terrinoni.terrybooks.model.BulkItemResult.Status;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * In-memory stand-in of the book repository, used to measure the service layer without a database.
+ * Only the methods called by the book service are supported; projections are ignored, so whole
+ * books are always returned.
+ */
+public final class InMemoryBookRepository implements InvocationHandler {
+
+  private final ConcurrentNavigableMap<String, Book> books = new ConcurrentSkipListMap<>();
+
+  private InMemoryBookRepository(Collection<Book> books) {
+    books.forEach(b -> this.books.put(b.getIsbn(), b));
+  }
+
+  /**
+   * Create a repository stand-in containing the specified books.
+   *
+   * @param books initial content of the repository
+   *
+   * @return the book repository stand-in
+   */
+  public static BookRepository create(Collection<Book> books) {
+    return (BookRepository) Proxy.newProxyInstance(BookRepository.class.getClassLoader(),
+        new Class<?>[]{BookRepository.class}, new InMemoryBookRepository(books));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Object invoke(Object proxy, Method method, Object[] args) {
+    if (method.getDeclaringClass() == Object.class) {
+      switch (method.getName()) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        default:
+          return "InMemoryBookRepository" + books.keySet();
+      }
+    }
+
+    switch (method.getName()) {
+      case "findOne":
+        if (args[0] instanceof String) {
+          return books.get(args[0]);
+        }
+        break;
+      case "findMany":
+        return ((Collection<String>) args[0]).stream()
+            .map(books::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+      case "findAll":
+        if (args.length == 2 && args[0] instanceof BookFilter) {
+          return filter((BookFilter) args[0], books.values().stream())
+              .collect(Collectors.toList());
+        }
+        break;
+      case "streamAll":
+        return filter((BookFilter) args[0], books.values().stream());
+      case "findPage":
+        BookFilter pageFilter = (BookFilter) args[0];
+        Book after = (Book) args[1];
+        if (pageFilter.hasPublishDateRange()) {
+          Comparator<Book> order = Comparator.comparing(Book::getPublishDate)
+              .thenComparing(Book::getIsbn);
+          return filter(pageFilter, books.values().stream())
+              .sorted(order)
+              .filter(b -> after == null || order.compare(b, after) > 0)
+              .limit((Integer) args[2])
+              .collect(Collectors.toList());
+        }
+        Collection<Book> candidates = after == null ? books.values()
+            : books.tailMap(after.getIsbn(), false).values();
+        return filter(pageFilter, candidates.stream())
+            .limit((Integer) args[2])
+            .collect(Collectors.toList());
+      case "insert":
+      case "save":
+        if (args[0] instanceof Book) {
+          Book book = (Book) args[0];
+          books.put(book.getIsbn(), book);
+          return book;
+        }
+        break;
+      case "insertAll":
+        List<BulkItemResult> results = new ArrayList<>();
+        for (Book book : (List<Book>) args[0]) {
+          boolean inserted = books.putIfAbsent(book.getIsbn(), book) == null;
+          results.add(new BulkItemResult(book.getIsbn(),
+              inserted ? Status.INSERTED : Status.DUPLICATE, null));
+        }
+        return results;
+      case "delete":
+        if (args[0] instanceof String) {
+          Book removed = books.remove(args[0]);
+          return args.length == 1 ? null : removed;
+        }
+        break;
+      case "count":
+        if (args == null || ((BookFilter) args[0]).isEmpty()) {
+          return (long) books.size();
+        }
+        int limit = (Integer) args[1];
+        Stream<Book> matching = filter((BookFilter) args[0], books.values().stream());
+        return (limit > 0 ? matching.limit(limit) : matching).count();
+      default:
+        break;
+    }
+    throw new UnsupportedOperationException("Not supported by the stand-in: " + method);
+  }
+
+  private static Stream<Book> filter(BookFilter filter, Stream<Book> books) {
+    return books.filter(b -> matches(filter, b));
+  }
+
+  private static boolean matches(BookFilter filter, Book book) {
+    return (filter.getIsbnPrefix() == null || book.getIsbn().startsWith(filter.getIsbnPrefix()))
+        && (filter.getAuthor() == null || (book.getAuthors() != null
+        && book.getAuthors().containsAll(Authors.split(filter.getAuthor()))))
+        && contains(book.getTitle(), filter.getTitleLike())
+        && contains(book.getSummary(), filter.getSummaryLike())
+        && inRange(book.getPublishDate(), filter.getPublishDateBefore(),
+        filter.getPublishDateAfter())
+        && inRange(book.getCreatedAt(), filter.getCreatedAtBefore(), filter.getCreatedAtAfter());
+  }
+
+  private static boolean contains(String value, String part) {
+    return part == null || (value != null && value.contains(part));
+  }
+
+  private static boolean inRange(Date value, Date before, Date after) {
+    if (before == null && after == null) {
+      return true;
+    }
+    return value != null && (before == null || value.before(before))
+        && (after == null || value.after(after));
+  }
+}
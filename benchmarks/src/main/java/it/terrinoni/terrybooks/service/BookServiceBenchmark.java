@@ -0,0 +1,129 @@
+package it.terrinoni.terrybooks.service;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:19.
+ */
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.terrinoni.terrybooks.benchmark.BookFixtures;
+import it.terrinoni.terrybooks.cache.BookCache;
+import it.terrinoni.terrybooks.cache.BookListCache;
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BookCount;
+import it.terrinoni.terrybooks.model.BookFilter;
+import it.terrinoni.terrybooks.model.BookLookupResult;
+import it.terrinoni.terrybooks.model.BookPage;
+import it.terrinoni.terrybooks.repository.InMemoryBookRepository;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Book service read paths against the in-memory repository stand-in, so the measurements cover
+ * validation, caching and paging without any database round trip. The benchmark lives in the
+ * service package to wire the service dependencies without a Spring context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookServiceBenchmark {
+
+  @Param({"10000"})
+  private int size;
+
+  private BookService bookService;
+  private String isbn;
+  private List<String> lookupIsbns;
+  private BookFilter authorFilter;
+
+  @Setup
+  public void setup() {
+    List<Book> books = BookFixtures.books(size);
+
+    bookService = new BookService();
+    bookService.bookRepository = InMemoryBookRepository.create(books);
+    bookService.bookCache = new BookCache(10000, 600, 10000, 30);
+    bookService.bookListCache = new BookListCache(64L * 1024 * 1024, 60);
+    bookService.meterRegistry = new SimpleMeterRegistry();
+    setField("bulkBatchSize", 1000);
+    setField("defaultPageSize", 100);
+    setField("maxPageSize", 1000);
+    setField("maxLookupSize", 1000);
+    setField("lookupChunkSize", 500);
+    setField("countLimit", 10000);
+    bookService.initMetrics();
+
+    isbn = books.get(size / 2).getIsbn();
+    lookupIsbns = books.stream().limit(100).map(Book::getIsbn).collect(Collectors.toList());
+    authorFilter = new BookFilter();
+    authorFilter.setAuthor(BookFixtures.author(1));
+  }
+
+  @Benchmark
+  public Book getBookCached() {
+    return bookService.getBook(isbn, null);
+  }
+
+  @Benchmark
+  public Book getBookUncached() {
+    bookService.bookCache.invalidate(isbn);
+    return bookService.getBook(isbn, null);
+  }
+
+  @Benchmark
+  public BookLookupResult lookupBooksCached() {
+    return bookService.lookupBooks(lookupIsbns, null);
+  }
+
+  @Benchmark
+  public BookLookupResult lookupBooksUncached() {
+    lookupIsbns.forEach(bookService.bookCache::invalidate);
+    return bookService.lookupBooks(lookupIsbns, null);
+  }
+
+  @Benchmark
+  public List<Book> getBookListCached() {
+    return bookService.getBookList(authorFilter, null);
+  }
+
+  @Benchmark
+  public List<Book> getBookListAfterWrite() {
+    // A write makes every cached list stale
+    bookService.bookListCache.bumpVersion();
+    return bookService.getBookList(authorFilter, null);
+  }
+
+  @Benchmark
+  public BookPage getBookPage() {
+    return bookService.getBookPage(new BookFilter(), null, null, null);
+  }
+
+  @Benchmark
+  public BookCount countBooks() {
+    // A write makes every cached list stale, so the books are counted by the repository
+    bookService.bookListCache.bumpVersion();
+    return bookService.countBooks(authorFilter);
+  }
+
+  private void setField(String name, int value) {
+    Field field = ReflectionUtils.findField(BookService.class, name);
+    ReflectionUtils.makeAccessible(field);
+    ReflectionUtils.setField(field, bookService, value);
+  }
+}
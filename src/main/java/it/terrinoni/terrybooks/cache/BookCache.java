@@ -0,0 +1,171 @@
+package it.terrinoni.terrybooks.cache;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:10.
+ */
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import it.terrinoni.terrybooks.model.Book;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded in-process cache for single book lookups. Found books and missing ISBNs are kept in two
+ * separate caches, so that not-found results can expire much sooner than found ones; both caches
+ * use the W-TinyLFU eviction policy. Hit, miss and eviction counters are published through the
+ * actuator metrics endpoint.
+ *
+ * <p>Books read from the database are cached through a fill token taken before the read: every
+ * write bumps the generation of the written ISBN, so a fill is discarded if the book has been
+ * written in the meantime, instead of caching a stale book or a false missing entry.
+ */
+@Component
+public class BookCache implements PublicMetrics {
+
+  private static final int GENERATION_STRIPES = 1024;
+
+  private final Cache<String, Book> books;
+  private final Cache<String, Boolean> missingIsbns;
+  // Write generations, per ISBN stripe and overall; both only grow, so their sum is the token
+  private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+  private final AtomicLong overallGeneration = new AtomicLong();
+
+  public BookCache(
+      @Value("${custom.cache.book.maxsize:10000}") long maxSize,
+      @Value("${custom.cache.book.ttl:600}") long ttlSeconds,
+      @Value("${custom.cache.book.missing.maxsize:10000}") long missingMaxSize,
+      @Value("${custom.cache.book.missing.ttl:30}") long missingTtlSeconds) {
+    books = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+    missingIsbns = Caffeine.newBuilder()
+        .maximumSize(missingMaxSize)
+        .expireAfterWrite(missingTtlSeconds, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Look up the cached book.
+   *
+   * @param isbn book unique identifier
+   *
+   * @return the cached book, null if the book is not cached
+   */
+  public Book get(String isbn) {
+    return books.getIfPresent(isbn);
+  }
+
+  /**
+   * Check whether the book is known to be missing.
+   *
+   * @param isbn book unique identifier
+   *
+   * @return true if a recent lookup did not find the book, false otherwise
+   */
+  public boolean isMissing(String isbn) {
+    return missingIsbns.getIfPresent(isbn) != null;
+  }
+
+  /**
+   * Take the token of the book, to be passed to the fill methods; it must be taken before the book
+   * is read from the database.
+   *
+   * @param isbn book unique identifier
+   *
+   * @return the current write generation of the book
+   */
+  public long fillToken(String isbn) {
+    return overallGeneration.get() + generations.get(stripe(isbn));
+  }
+
+  /**
+   * Store the book read from the database, unless it has been written since the token was taken.
+   *
+   * @param book  book read from the database
+   * @param token token taken before the read
+   */
+  public void fill(Book book, long token) {
+    // The check runs under the entry lock, and writers bump the generation before the entry changes
+    books.asMap().compute(book.getIsbn(),
+        (isbn, cached) -> fillToken(isbn) == token ? book : cached);
+  }
+
+  /**
+   * Remember that the book does not exist, unless it has been written since the token was taken.
+   *
+   * @param isbn  book unique identifier
+   * @param token token taken before the read
+   */
+  public void fillMissing(String isbn, long token) {
+    missingIsbns.asMap().compute(isbn,
+        (key, missing) -> fillToken(key) == token ? Boolean.TRUE : missing);
+  }
+
+  /**
+   * Store the book just written in the cache, replacing any missing entry for the same ISBN; a
+   * cached book with a newer version is kept.
+   *
+   * @param book book to be cached
+   */
+  public void put(Book book) {
+    generations.incrementAndGet(stripe(book.getIsbn()));
+    missingIsbns.invalidate(book.getIsbn());
+    books.asMap().merge(book.getIsbn(), book,
+        (cached, written) -> cached.getVersion() > written.getVersion() ? cached : written);
+  }
+
+  /**
+   * Remove every entry related to the book; it must be called whenever the book is modified.
+   *
+   * @param isbn book unique identifier
+   */
+  public void invalidate(String isbn) {
+    generations.incrementAndGet(stripe(isbn));
+    books.invalidate(isbn);
+    missingIsbns.invalidate(isbn);
+  }
+
+  /**
+   * Remove every entry; it must be called whenever books are modified without knowing which ones.
+   */
+  public void invalidateAll() {
+    overallGeneration.incrementAndGet();
+    books.invalidateAll();
+    missingIsbns.invalidateAll();
+  }
+
+  private static int stripe(String isbn) {
+    return (isbn.hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    List<Metric<?>> metrics = new ArrayList<>();
+    addMetrics(metrics, "cache.book", books.stats(), books.estimatedSize());
+    addMetrics(metrics, "cache.book.missing", missingIsbns.stats(),
+        missingIsbns.estimatedSize());
+    return metrics;
+  }
+
+  private static void addMetrics(List<Metric<?>> metrics, String prefix, CacheStats stats,
+      long size) {
+    metrics.add(new Metric<>(prefix + ".size", size));
+    metrics.add(new Metric<>(prefix + ".hit", stats.hitCount()));
+    metrics.add(new Metric<>(prefix + ".miss", stats.missCount()));
+    metrics.add(new Metric<>(prefix + ".eviction", stats.evictionCount()));
+    metrics.add(new Metric<>(prefix + ".hit.ratio", stats.hitRate()));
+  }
+}
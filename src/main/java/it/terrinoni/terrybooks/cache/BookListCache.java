@@ -0,0 +1,160 @@
+package it.terrinoni.terrybooks.cache;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:11.
+ */
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BookFilter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process cache for book list query results, keyed by the normalized book filter. Every cached
+ * result is tagged with the collection version it was read at; any write through the book service
+ * bumps the version, so results read before the write are never returned again. The cache is
+ * bounded by the estimated memory footprint of the cached books rather than by the number of
+ * results, since result sizes vary widely.
+ */
+@Component
+public class BookListCache implements PublicMetrics {
+
+  private static final int ENTRY_OVERHEAD = 64;
+  private static final int BOOK_OVERHEAD = 128;
+  private static final int STRING_OVERHEAD = 40;
+  private static final int DATE_SIZE = 24;
+
+  private final AtomicLong version = new AtomicLong();
+  private final Cache<BookFilter, VersionedResult> results;
+
+  public BookListCache(
+      @Value("${custom.cache.booklist.maxbytes:67108864}") long maxBytes,
+      @Value("${custom.cache.booklist.ttl:60}") long ttlSeconds) {
+    results = Caffeine.newBuilder()
+        .maximumWeight(maxBytes)
+        .weigher((BookFilter filter, VersionedResult result) -> result.weight)
+        .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * Read the current collection version; it must be read before running the query whose result is
+   * going to be cached.
+   *
+   * @return the current collection version
+   */
+  public long currentVersion() {
+    return version.get();
+  }
+
+  /**
+   * Mark every cached result as stale; it must be called after every write to the collection.
+   */
+  public void bumpVersion() {
+    version.incrementAndGet();
+  }
+
+  /**
+   * Look up the cached result of the query.
+   *
+   * @param filter book filter of the query
+   *
+   * @return the unmodifiable cached result, null if the result is not cached or is stale
+   */
+  public List<Book> get(BookFilter filter) {
+    VersionedResult result = results.getIfPresent(filter);
+    if (result == null) {
+      return null;
+    }
+    if (result.version != version.get()) {
+      results.invalidate(filter);
+      return null;
+    }
+    return result.books;
+  }
+
+  /**
+   * Store the result of the query; the result is discarded as soon as it is read if the collection
+   * has been modified since the specified version.
+   *
+   * @param filter  book filter of the query
+   * @param version collection version read before running the query
+   * @param books   result of the query
+   *
+   * @return the unmodifiable cached result
+   */
+  public List<Book> put(BookFilter filter, long version, List<Book> books) {
+    VersionedResult result = new VersionedResult(version, books);
+    results.put(filter, result);
+    return result.books;
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    CacheStats stats = results.stats();
+    List<Metric<?>> metrics = new ArrayList<>();
+    metrics.add(new Metric<>("cache.booklist.size", results.estimatedSize()));
+    metrics.add(new Metric<>("cache.booklist.bytes",
+        results.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L)));
+    metrics.add(new Metric<>("cache.booklist.hit", stats.hitCount()));
+    metrics.add(new Metric<>("cache.booklist.miss", stats.missCount()));
+    metrics.add(new Metric<>("cache.booklist.eviction", stats.evictionCount()));
+    metrics.add(new Metric<>("cache.booklist.hit.ratio", stats.hitRate()));
+    metrics.add(new Metric<>("cache.booklist.version", version.get()));
+    return metrics;
+  }
+
+  /**
+   * Rough estimate of the heap footprint of the book, in bytes.
+   */
+  private static int estimateSize(Book book) {
+    int size = BOOK_OVERHEAD + 3 * DATE_SIZE;
+    size += estimateSize(book.getIsbn()) + estimateSize(book.getTitle())
+        + estimateSize(book.getSummary()) + estimateSize(book.getNote());
+    if (book.getAuthors() != null) {
+      for (String author : book.getAuthors()) {
+        size += estimateSize(author);
+      }
+    }
+    if (book.getTitleTrigrams() != null) {
+      size += book.getTitleTrigrams().size() * (STRING_OVERHEAD + 6);
+    }
+    return size;
+  }
+
+  private static int estimateSize(String value) {
+    return value == null ? 0 : STRING_OVERHEAD + 2 * value.length();
+  }
+
+  /**
+   * Cached result, along with the collection version it was read at and its estimated size.
+   */
+  private static final class VersionedResult {
+
+    private final long version;
+    private final List<Book> books;
+    private final int weight;
+
+    private VersionedResult(long version, List<Book> books) {
+      this.version = version;
+      this.books = Collections.unmodifiableList(books);
+      long size = ENTRY_OVERHEAD;
+      for (Book book : books) {
+        size += estimateSize(book);
+      }
+      this.weight = (int) Math.min(size, Integer.MAX_VALUE);
+    }
+  }
+}
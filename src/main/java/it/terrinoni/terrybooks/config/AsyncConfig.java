@@ -0,0 +1,61 @@
+package it.terrinoni.terrybooks.config;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:31.
+ */
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import it.terrinoni.terrybooks.context.MdcTaskDecorator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration class used to define the executors of the asynchronous requests. Point lookups and
+ * scans run on separate bounded executors, so a slow list query cannot starve the single book
+ * requests; when the queue of an executor is full, the task is rejected and the request fails fast
+ * instead of queuing without limits.
+ */
+@Configuration
+public class AsyncConfig {
+
+  public static final String LOOKUP_EXECUTOR = "lookupExecutor";
+  public static final String SCAN_EXECUTOR = "scanExecutor";
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @Bean(name = LOOKUP_EXECUTOR)
+  public ThreadPoolTaskExecutor lookupExecutor(
+      @Value("${custom.async.lookup.poolsize:32}") int poolSize,
+      @Value("${custom.async.lookup.queuecapacity:256}") int queueCapacity) {
+    return executor("lookup", poolSize, queueCapacity);
+  }
+
+  @Bean(name = SCAN_EXECUTOR)
+  public ThreadPoolTaskExecutor scanExecutor(
+      @Value("${custom.async.scan.poolsize:8}") int poolSize,
+      @Value("${custom.async.scan.queuecapacity:32}") int queueCapacity) {
+    return executor("scan", poolSize, queueCapacity);
+  }
+
+  private ThreadPoolTaskExecutor executor(String name, int poolSize, int queueCapacity) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix(name + "-");
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    // The request correlation identifier follows the task
+    executor.setTaskDecorator(new MdcTaskDecorator());
+    // Default abort policy, a full queue rejects the task
+    executor.initialize();
+
+    new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), name, Tags.empty())
+        .bindTo(meterRegistry);
+    return executor;
+  }
+}
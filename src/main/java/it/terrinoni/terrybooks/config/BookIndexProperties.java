@@ -0,0 +1,85 @@
+package it.terrinoni.terrybooks.config;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:12.
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration class containing the declared index set of the book collection; the indexes are
+ * taken directly from the main properties file, e.g.:
+ * <pre>
+ * custom.mongodb.book.indexes[0].name=authors_publish_date
+ * custom.mongodb.book.indexes[0].keys=authors:1,publish_date:1
+ * </pre>
+ * Keys are document field names followed by the sort direction (1 or -1).
+ */
+@Component
+@ConfigurationProperties(prefix = "custom.mongodb.book")
+public class BookIndexProperties {
+
+  private List<IndexDeclaration> indexes = new ArrayList<>();
+
+  public List<IndexDeclaration> getIndexes() {
+    return indexes;
+  }
+
+  public void setIndexes(List<IndexDeclaration> indexes) {
+    this.indexes = indexes;
+  }
+
+  /**
+   * Single index declaration.
+   */
+  public static class IndexDeclaration {
+
+    private String name;
+    private String keys;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public String getKeys() {
+      return keys;
+    }
+
+    public void setKeys(String keys) {
+      this.keys = keys;
+    }
+
+    /**
+     * Parse the declared keys.
+     *
+     * @return the document field names mapped to their direction, in declaration order
+     */
+    public Map<String, Integer> getKeyMap() {
+      Map<String, Integer> keyMap = new LinkedHashMap<>();
+      for (String key : keys.split(",")) {
+        String[] parts = key.trim().split(":");
+        keyMap.put(parts[0].trim(), parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1);
+      }
+      return keyMap;
+    }
+
+    /**
+     * Getter for the leading field of the index, i.e. the field that can be resolved through the
+     * index on its own.
+     *
+     * @return the leading document field name
+     */
+    public String getLeadingField() {
+      return getKeyMap().keySet().iterator().next();
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package it.terrinoni.terrybooks.config;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:15.
+ */
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BookField;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Configuration class used to customize the JSON object mapper. Books are bound to a property
+ * filter through a mix-in, so that responses can be restricted to the requested fields; the default
+ * filter serializes every field. Besides JSON, the API negotiates the binary Smile encoding,
+ * configured as the JSON one, and both mappers access the model properties through generated
+ * bytecode instead of reflection.
+ */
+@Configuration
+public class JacksonConfig {
+
+  /**
+   * Identifier of the property filter applied to books.
+   */
+  public static final String BOOK_FIELDS_FILTER = "bookFields";
+
+  @Bean
+  public Jackson2ObjectMapperBuilderCustomizer bookFieldsCustomizer() {
+    return builder -> builder
+        .mixIn(Book.class, BookFieldsMixIn.class)
+        .filters(bookFieldsFilter(null));
+  }
+
+  /**
+   * Module replacing the reflective property accessors with generated ones; it is registered by
+   * Spring Boot into the auto-configured mappers.
+   *
+   * @return the Afterburner module
+   */
+  @Bean
+  public Module afterburnerModule() {
+    return new AfterburnerModule();
+  }
+
+  /**
+   * Message converter of the Smile encoding; the mapper shares the configuration of the JSON one,
+   * so filters, mix-ins, modules and date formats are the same.
+   *
+   * @param builder auto-configured object mapper builder
+   *
+   * @return the Smile message converter
+   */
+  @Bean
+  public SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    builder.configure(smileMapper);
+    return new SmileHttpMessageConverter(smileMapper);
+  }
+
+  /**
+   * Build the filter provider restricting books to the specified fields.
+   *
+   * @param fields fields to be serialized, null to serialize every field
+   *
+   * @return the filter provider
+   */
+  public static FilterProvider bookFieldsFilter(Set<BookField> fields) {
+    SimpleBeanPropertyFilter filter;
+    if (fields == null) {
+      filter = SimpleBeanPropertyFilter.serializeAll();
+    } else {
+      filter = SimpleBeanPropertyFilter.filterOutAllExcept(fields.stream()
+          .map(BookField::getJsonName)
+          .collect(Collectors.toSet()));
+    }
+    return new SimpleFilterProvider().addFilter(BOOK_FIELDS_FILTER, filter);
+  }
+
+  @JsonFilter(BOOK_FIELDS_FILTER)
+  abstract static class BookFieldsMixIn {
+
+  }
+
+  /**
+   * Message converter reading and writing the Smile encoding; being a Jackson converter, it is
+   * handled as the JSON one, e.g. by the book fields response body advice. It only writes when
+   * Smile is explicitly accepted, so JSON stays the default encoding of every endpoint.
+   */
+  public static class SmileHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+
+    public static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    SmileHttpMessageConverter(ObjectMapper objectMapper) {
+      super(objectMapper, SMILE);
+      // Binary encoding, no charset
+      setDefaultCharset(null);
+    }
+
+    @Override
+    protected boolean canWrite(MediaType mediaType) {
+      return mediaType != null && !mediaType.isWildcardType() && !mediaType.isWildcardSubtype()
+          && super.canWrite(mediaType);
+    }
+  }
+}
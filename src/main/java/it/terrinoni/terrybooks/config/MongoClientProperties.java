@@ -0,0 +1,209 @@
+package it.terrinoni.terrybooks.config;
+
+/*
+ * Created by agent, on 18/10/2026 - 05:04.
+ */
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuration class containing the Mongo client options, taken directly from the main properties
+ * file, e.g.:
+ * <pre>
+ * custom.mongodb.client.pool.max-size=50
+ * custom.mongodb.client.operations.scan.read-preference=secondaryPreferred
+ * custom.mongodb.client.operations.scan.max-time=30000
+ * </pre>
+ * Times are in milliseconds, 0 means no limit. Lookups are the single book and multi-get queries,
+ * scans are the book list queries and writes are every insertion, update and removal.
+ */
+@Component
+@ConfigurationProperties(prefix = "custom.mongodb.client")
+public class MongoClientProperties {
+
+  private int connectTimeout = 10000;
+  private int socketTimeout = 0;
+  private int serverSelectionTimeout = 30000;
+  private String readConcern = "";
+  private Pool pool = new Pool();
+  private Operations operations = new Operations();
+
+  public int getConnectTimeout() {
+    return connectTimeout;
+  }
+
+  public void setConnectTimeout(int connectTimeout) {
+    this.connectTimeout = connectTimeout;
+  }
+
+  public int getSocketTimeout() {
+    return socketTimeout;
+  }
+
+  public void setSocketTimeout(int socketTimeout) {
+    this.socketTimeout = socketTimeout;
+  }
+
+  public int getServerSelectionTimeout() {
+    return serverSelectionTimeout;
+  }
+
+  public void setServerSelectionTimeout(int serverSelectionTimeout) {
+    this.serverSelectionTimeout = serverSelectionTimeout;
+  }
+
+  public String getReadConcern() {
+    return readConcern;
+  }
+
+  public void setReadConcern(String readConcern) {
+    this.readConcern = readConcern;
+  }
+
+  public Pool getPool() {
+    return pool;
+  }
+
+  public void setPool(Pool pool) {
+    this.pool = pool;
+  }
+
+  public Operations getOperations() {
+    return operations;
+  }
+
+  public void setOperations(Operations operations) {
+    this.operations = operations;
+  }
+
+  /**
+   * Connection pool options, applied to the pool of every server.
+   */
+  public static class Pool {
+
+    private int minSize = 0;
+    private int maxSize = 100;
+    private int waitQueueMultiple = 5;
+    private int maxWaitTime = 120000;
+    private int maxIdleTime = 0;
+    private int maxLifeTime = 0;
+
+    public int getMinSize() {
+      return minSize;
+    }
+
+    public void setMinSize(int minSize) {
+      this.minSize = minSize;
+    }
+
+    public int getMaxSize() {
+      return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    public int getWaitQueueMultiple() {
+      return waitQueueMultiple;
+    }
+
+    public void setWaitQueueMultiple(int waitQueueMultiple) {
+      this.waitQueueMultiple = waitQueueMultiple;
+    }
+
+    public int getMaxWaitTime() {
+      return maxWaitTime;
+    }
+
+    public void setMaxWaitTime(int maxWaitTime) {
+      this.maxWaitTime = maxWaitTime;
+    }
+
+    public int getMaxIdleTime() {
+      return maxIdleTime;
+    }
+
+    public void setMaxIdleTime(int maxIdleTime) {
+      this.maxIdleTime = maxIdleTime;
+    }
+
+    public int getMaxLifeTime() {
+      return maxLifeTime;
+    }
+
+    public void setMaxLifeTime(int maxLifeTime) {
+      this.maxLifeTime = maxLifeTime;
+    }
+  }
+
+  /**
+   * Options of every operation type.
+   */
+  public static class Operations {
+
+    private Operation lookup = new Operation();
+    private Operation scan = new Operation();
+    private Operation write = new Operation();
+
+    public Operation getLookup() {
+      return lookup;
+    }
+
+    public void setLookup(Operation lookup) {
+      this.lookup = lookup;
+    }
+
+    public Operation getScan() {
+      return scan;
+    }
+
+    public void setScan(Operation scan) {
+      this.scan = scan;
+    }
+
+    public Operation getWrite() {
+      return write;
+    }
+
+    public void setWrite(Operation write) {
+      this.write = write;
+    }
+  }
+
+  /**
+   * Options of a single operation type; the read preference applies to the queries only, the write
+   * concern to the writes only.
+   */
+  public static class Operation {
+
+    private long maxTime = 0;
+    private String readPreference = "primary";
+    private String writeConcern = "ACKNOWLEDGED";
+
+    public long getMaxTime() {
+      return maxTime;
+    }
+
+    public void setMaxTime(long maxTime) {
+      this.maxTime = maxTime;
+    }
+
+    public String getReadPreference() {
+      return readPreference;
+    }
+
+    public void setReadPreference(String readPreference) {
+      this.readPreference = readPreference;
+    }
+
+    public String getWriteConcern() {
+      return writeConcern;
+    }
+
+    public void setWriteConcern(String writeConcern) {
+      this.writeConcern = writeConcern;
+    }
+  }
+}
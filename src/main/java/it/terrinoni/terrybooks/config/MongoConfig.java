@@ -0,0 +1,87 @@
+package it.terrinoni.terrybooks.config;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:26.
+ */
+
+import com.mongodb.MongoClientOptions;
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadConcernLevel;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.terrinoni.terrybooks.metrics.ConnectionPoolMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+/**
+ * Configuration class used to customize the Mongo client; the options defined here are picked up
+ * by the Spring Boot Mongo auto-configuration, along with the connection properties. Lookups and
+ * writes go through the primary Mongo template, while scans go through a separate template, so the
+ * two can be served with different read preferences.
+ */
+@Configuration
+@Profile("!embedded")
+public class MongoConfig {
+
+  public static final String SCAN_TEMPLATE = "scanMongoTemplate";
+
+  @Bean
+  public MongoClientOptions mongoClientOptions(MongoClientProperties properties,
+      MeterRegistry meterRegistry) {
+    MongoClientProperties.Pool pool = properties.getPool();
+    MongoClientOptions.Builder builder = MongoClientOptions.builder()
+        .connectTimeout(properties.getConnectTimeout())
+        .socketTimeout(properties.getSocketTimeout())
+        .serverSelectionTimeout(properties.getServerSelectionTimeout())
+        .minConnectionsPerHost(pool.getMinSize())
+        .connectionsPerHost(pool.getMaxSize())
+        .threadsAllowedToBlockForConnectionMultiplier(pool.getWaitQueueMultiple())
+        .maxWaitTime(pool.getMaxWaitTime())
+        .maxConnectionIdleTime(pool.getMaxIdleTime())
+        .maxConnectionLifeTime(pool.getMaxLifeTime())
+        .writeConcern(writeConcern(properties.getOperations().getWrite()))
+        .addConnectionPoolListener(new ConnectionPoolMetrics(meterRegistry));
+    if (!properties.getReadConcern().isEmpty()) {
+      // The Mongo template cannot set the read concern per operation, so it is set on the client
+      ReadConcernLevel level = ReadConcernLevel.fromString(properties.getReadConcern());
+      builder.readConcern(new ReadConcern(level));
+    }
+    return builder.build();
+  }
+
+  @Bean
+  @Primary
+  public MongoTemplate mongoTemplate(MongoDbFactory mongoDbFactory, MongoConverter converter,
+      MongoClientProperties properties) {
+    MongoTemplate mongoTemplate = new MongoTemplate(mongoDbFactory, converter);
+    mongoTemplate.setReadPreference(
+        ReadPreference.valueOf(properties.getOperations().getLookup().getReadPreference()));
+    mongoTemplate.setWriteConcern(writeConcern(properties.getOperations().getWrite()));
+    return mongoTemplate;
+  }
+
+  @Bean(name = SCAN_TEMPLATE)
+  public MongoTemplate scanMongoTemplate(MongoDbFactory mongoDbFactory, MongoConverter converter,
+      MongoClientProperties properties) {
+    MongoTemplate mongoTemplate = new MongoTemplate(mongoDbFactory, converter);
+    mongoTemplate.setReadPreference(
+        ReadPreference.valueOf(properties.getOperations().getScan().getReadPreference()));
+    mongoTemplate.setWriteConcern(writeConcern(properties.getOperations().getWrite()));
+    return mongoTemplate;
+  }
+
+  private static WriteConcern writeConcern(MongoClientProperties.Operation operation) {
+    WriteConcern writeConcern = WriteConcern.valueOf(operation.getWriteConcern());
+    if (writeConcern == null) {
+      throw new IllegalArgumentException(
+          String.format("Unknown write concern: %s", operation.getWriteConcern()));
+    }
+    return writeConcern;
+  }
+}
@@ -0,0 +1,39 @@
+package it.terrinoni.terrybooks.context;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:34.
+ */
+
+import java.util.Map;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Task decorator that copies the logging MDC of the submitting thread into the executor thread, so
+ * the request correlation identifier follows the request work; the previous MDC of the executor
+ * thread is restored once the task completes.
+ */
+public class MdcTaskDecorator implements TaskDecorator {
+
+  @Override
+  public Runnable decorate(Runnable runnable) {
+    Map<String, String> context = MDC.getCopyOfContextMap();
+    return () -> {
+      Map<String, String> previous = MDC.getCopyOfContextMap();
+      setContext(context);
+      try {
+        runnable.run();
+      } finally {
+        setContext(previous);
+      }
+    };
+  }
+
+  private static void setContext(Map<String, String> context) {
+    if (context == null) {
+      MDC.clear();
+    } else {
+      MDC.setContextMap(context);
+    }
+  }
+}
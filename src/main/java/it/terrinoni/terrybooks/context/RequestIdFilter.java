@@ -0,0 +1,63 @@
+package it.terrinoni.terrybooks.context;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:34.
+ */
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Servlet filter that binds a correlation identifier to every request; the identifier is taken
+ * from the "X-Request-Id" header when valid, generated otherwise, and returned in the same response
+ * header. It is stored in the logging MDC, so every log line of the request carries it, and it is
+ * propagated to the request executors by the MDC task decorator.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestIdFilter extends OncePerRequestFilter {
+
+  public static final String HEADER = "X-Request-Id";
+  public static final String MDC_KEY = "requestId";
+
+  private static final String ATTRIBUTE = RequestIdFilter.class.getName() + ".requestId";
+  // Client identifiers are written to the logs, so only short and safe values are accepted
+  private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    // Asynchronous results are dispatched again, the identifier is restored from the request
+    return false;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    String requestId = (String) request.getAttribute(ATTRIBUTE);
+    if (requestId == null) {
+      requestId = request.getHeader(HEADER);
+      if (requestId == null || !VALID_REQUEST_ID.matcher(requestId).matches()) {
+        requestId = Long.toHexString(ThreadLocalRandom.current().nextLong());
+      }
+      request.setAttribute(ATTRIBUTE, requestId);
+      response.setHeader(HEADER, requestId);
+    }
+
+    MDC.put(MDC_KEY, requestId);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      MDC.remove(MDC_KEY);
+    }
+  }
+}
@@ -10,14 +10,24 @@ import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BookCount;
+import it.terrinoni.terrybooks.model.BookLookupResult;
+import it.terrinoni.terrybooks.model.BulkDeleteResult;
+import it.terrinoni.terrybooks.model.BulkOperationResult;
+import it.terrinoni.terrybooks.model.CatalogStats;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 /**
  * API interface for books; this class is implemented by the related controller.
@@ -30,74 +40,249 @@ public interface BookApi {
       "v0", "book",})
   @ApiResponses(value = {
       @ApiResponse(code = 200, message = "Successful operation", response = Book.class),
-      @ApiResponse(code = 500, message = "Internal server error")})
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
   @RequestMapping(value = "/book",
-      produces = {"application/json"},
-      consumes = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.POST)
-  ResponseEntity<Book> addBook(
+  CompletableFuture<ResponseEntity<Book>> addBook(
       @ApiParam(value = "Book to be added", required = true) @RequestBody Book book);
 
-  @ApiOperation(value = "Bulk add new books list", notes = "This API can be used to store a list of new books", response = Book.class, responseContainer = "List", tags = {
+  @ApiOperation(value = "Bulk add new books list", notes = "This API can be used to store a list of new books; every book is processed even if some of them fail, and the outcome of each book is returned", response = BulkOperationResult.class, tags = {
       "v0", "book",})
   @ApiResponses(value = {
-      @ApiResponse(code = 200, message = "Successful operation", response = Book.class),
-      @ApiResponse(code = 500, message = "Internal server error")})
+      @ApiResponse(code = 200, message = "Successful operation", response = BulkOperationResult.class),
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
   @RequestMapping(value = "/book/bulk",
-      produces = {"application/json"},
-      consumes = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.POST)
-  ResponseEntity<List<Book>> addBooksBulk(
+  CompletableFuture<ResponseEntity<BulkOperationResult>> addBooksBulk(
       @ApiParam(value = "Books list to be added", required = true) @RequestBody List<Book> bookList);
 
-  @ApiOperation(value = "Get the single book", notes = "This API can be used to retrieve the specific book", response = Book.class, tags = {
+  @ApiOperation(value = "Bulk update books list", notes = "This API can be used to partially update a list of books; every item contains the isbn of the book along with the fields to be changed, as in the partial update of a single book, and the outcome of each book is returned", response = BulkOperationResult.class, tags = {
+      "v0", "book",})
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful operation", response = BulkOperationResult.class),
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
+  @RequestMapping(value = "/book/bulk",
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.PATCH)
+  CompletableFuture<ResponseEntity<BulkOperationResult>> updateBooksBulk(
+      @ApiParam(value = "ISBN and fields to be changed of every book", required = true) @RequestBody List<Map<String, Object>> items);
+
+  @ApiOperation(value = "Bulk delete books list", notes = "This API can be used to delete a list of books identified by ISBN, and the outcome of each book is returned", response = BulkOperationResult.class, tags = {
+      "v0", "book",})
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful operation", response = BulkOperationResult.class),
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
+  @RequestMapping(value = "/book/bulk",
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.DELETE)
+  CompletableFuture<ResponseEntity<BulkOperationResult>> deleteBooksBulk(
+      @ApiParam(value = "ISBNs of books to delete", required = true) @RequestBody List<String> isbns);
+
+  @ApiOperation(value = "Delete books by filter", notes = "This API can be used to delete every book that matches with the filter parameters; at least one filter parameter is required", response = BulkDeleteResult.class, tags = {
+      "v0", "book",})
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful operation", response = BulkDeleteResult.class),
+      @ApiResponse(code = 400, message = "Invalid request parameter"),
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
+  @RequestMapping(value = "/book",
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.DELETE)
+  CompletableFuture<ResponseEntity<BulkDeleteResult>> deleteBooks(
+      @ApiParam(value = "Author of the book") @RequestParam(value = "author", required = false) String author,
+      @ApiParam(value = "Title like") @RequestParam(value = "title_like", required = false) String titleLike,
+      @ApiParam(value = "Publish date before") @RequestParam(value = "publish_date_before", required = false) Date publishDateBefore,
+      @ApiParam(value = "Publish date after") @RequestParam(value = "publish_date_after", required = false) Date publishDateAfter,
+      @ApiParam(value = "Summary like") @RequestParam(value = "summary_like", required = false) String summaryLike,
+      @ApiParam(value = "Creation date before") @RequestParam(value = "created_at_before", required = false) Date createdAtBefore,
+      @ApiParam(value = "Creation date after") @RequestParam(value = "created_at_after", required = false) Date createdAtAfter,
+      @ApiParam(value = "ISBN prefix") @RequestParam(value = "isbn_prefix", required = false) String isbnPrefix);
+
+  @ApiOperation(value = "Get the single book", notes = "This API can be used to retrieve the specific book; the fields parameter restricts the returned properties, and the body is not returned if the entity tag matches with If-None-Match", response = Book.class, tags = {
       "v0", "book",})
   @ApiResponses(value = {
       @ApiResponse(code = 200, message = "Successful operation", response = Book.class),
+      @ApiResponse(code = 304, message = "Book not modified"),
+      @ApiResponse(code = 400, message = "Invalid request parameter"),
       @ApiResponse(code = 404, message = "Book not found"),
-      @ApiResponse(code = 500, message = "Internal server error")})
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
   @RequestMapping(value = "/book/{isbn}",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.GET)
+  CompletableFuture<ResponseEntity<Book>> getBook(
+      @ApiParam(value = "ISBN of book to return", required = true) @PathVariable("isbn") String isbn,
+      @ApiParam(value = "Comma-separated list of the fields to be returned") @RequestParam(value = "fields", required = false) String fields,
+      @ApiParam(value = "Entity tags of the representations already known") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch);
+
+  @ApiOperation(value = "Get the catalog statistics", notes = "This API can be used to retrieve the number of books, overall, per author and per publish year; statistics are kept up to date by every write and periodically reconciled with the books, so they may lag behind bulk writes", response = CatalogStats.class, tags = {
+      "v0", "book",})
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful operation", response = CatalogStats.class),
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
+  @RequestMapping(value = "/book/stats",
+      produces = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.GET)
-  ResponseEntity<Book> getBook(
-      @ApiParam(value = "ISBN of book to return", required = true) @PathVariable("isbn") String isbn);
+  CompletableFuture<ResponseEntity<CatalogStats>> getCatalogStats();
 
-  @ApiOperation(value = "Get all books", notes = "This API can be used to retrieve the complete collection of books", response = Book.class, responseContainer = "List", tags = {
+  @ApiOperation(value = "Get many books", notes = "This API can be used to retrieve many specific books at once; the books found and the ISBNs of the missing ones are returned in the same order of the request; the fields parameter restricts the returned properties", response = BookLookupResult.class, tags = {
+      "v0", "book",})
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful operation", response = BookLookupResult.class),
+      @ApiResponse(code = 400, message = "Invalid request parameter"),
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
+  @RequestMapping(value = "/book/lookup",
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.POST)
+  CompletableFuture<ResponseEntity<BookLookupResult>> lookupBooks(
+      @ApiParam(value = "ISBNs of books to return", required = true) @RequestBody List<String> isbns,
+      @ApiParam(value = "Comma-separated list of the fields to be returned") @RequestParam(value = "fields", required = false) String fields);
+
+  @ApiOperation(value = "Get all books", notes = "This API can be used to retrieve the complete collection of books; when limit or cursor is specified, a single page ordered by ISBN is returned, the following page is linked in the Link header and the number of matching books is returned in the X-Total-Count header; the fields parameter restricts the returned properties", response = Book.class, responseContainer = "List", tags = {
       "v0", "book",})
   @ApiResponses(value = {
       @ApiResponse(code = 200, message = "Successful operation", response = Book.class, responseContainer = "List"),
-      @ApiResponse(code = 500, message = "Internal server error")})
+      @ApiResponse(code = 400, message = "Invalid request parameter"),
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
   @RequestMapping(value = "/book",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.GET)
-  ResponseEntity<List<Book>> getBookList(
+  CompletableFuture<ResponseEntity<List<Book>>> getBookList(
       @ApiParam(value = "Author of the book") @RequestParam(value = "author", required = false) String author,
       @ApiParam(value = "Title like") @RequestParam(value = "title_like", required = false) String titleLike,
       @ApiParam(value = "Publish date before") @RequestParam(value = "publish_date_before", required = false) Date publishDateBefore,
-      @ApiParam(value = "Publish date after") @RequestParam(value = "publish_date_after", required = false) Date publishDateAfter);
+      @ApiParam(value = "Publish date after") @RequestParam(value = "publish_date_after", required = false) Date publishDateAfter,
+      @ApiParam(value = "Summary like") @RequestParam(value = "summary_like", required = false) String summaryLike,
+      @ApiParam(value = "Creation date before") @RequestParam(value = "created_at_before", required = false) Date createdAtBefore,
+      @ApiParam(value = "Creation date after") @RequestParam(value = "created_at_after", required = false) Date createdAtAfter,
+      @ApiParam(value = "ISBN prefix") @RequestParam(value = "isbn_prefix", required = false) String isbnPrefix,
+      @ApiParam(value = "Maximum number of books in the page") @RequestParam(value = "limit", required = false) Integer limit,
+      @ApiParam(value = "Continuation token of the page") @RequestParam(value = "cursor", required = false) String cursor,
+      @ApiParam(value = "Comma-separated list of the fields to be returned") @RequestParam(value = "fields", required = false) String fields);
 
-  @ApiOperation(value = "Update the single book", notes = "This API can be used to modify the specific book", response = Book.class, tags = {
+  @ApiOperation(value = "Count books", notes = "This API can be used to count the books that match with the filter parameters without retrieving them; large counts are capped, and the count is returned in the X-Total-Count header too (e.g. 10000+ if capped)", response = BookCount.class, tags = {
+      "v0", "book",})
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful operation", response = BookCount.class),
+      @ApiResponse(code = 400, message = "Invalid request parameter"),
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
+  @RequestMapping(value = "/book",
+      params = {"count=true"},
+      produces = {"application/json", "application/x-jackson-smile"},
+      method = RequestMethod.GET)
+  CompletableFuture<ResponseEntity<BookCount>> countBooks(
+      @ApiParam(value = "Author of the book") @RequestParam(value = "author", required = false) String author,
+      @ApiParam(value = "Title like") @RequestParam(value = "title_like", required = false) String titleLike,
+      @ApiParam(value = "Publish date before") @RequestParam(value = "publish_date_before", required = false) Date publishDateBefore,
+      @ApiParam(value = "Publish date after") @RequestParam(value = "publish_date_after", required = false) Date publishDateAfter,
+      @ApiParam(value = "Summary like") @RequestParam(value = "summary_like", required = false) String summaryLike,
+      @ApiParam(value = "Creation date before") @RequestParam(value = "created_at_before", required = false) Date createdAtBefore,
+      @ApiParam(value = "Creation date after") @RequestParam(value = "created_at_after", required = false) Date createdAtAfter,
+      @ApiParam(value = "ISBN prefix") @RequestParam(value = "isbn_prefix", required = false) String isbnPrefix);
+
+  @ApiOperation(value = "Count books through headers", notes = "This API can be used to count the books that match with the filter parameters without retrieving them; the count is returned in the X-Total-Count header only (e.g. 10000+ if capped)", tags = {
+      "v0", "book",})
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful operation"),
+      @ApiResponse(code = 400, message = "Invalid request parameter"),
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
+  @RequestMapping(value = "/book",
+      method = RequestMethod.HEAD)
+  CompletableFuture<ResponseEntity<Void>> headBookList(
+      @ApiParam(value = "Author of the book") @RequestParam(value = "author", required = false) String author,
+      @ApiParam(value = "Title like") @RequestParam(value = "title_like", required = false) String titleLike,
+      @ApiParam(value = "Publish date before") @RequestParam(value = "publish_date_before", required = false) Date publishDateBefore,
+      @ApiParam(value = "Publish date after") @RequestParam(value = "publish_date_after", required = false) Date publishDateAfter,
+      @ApiParam(value = "Summary like") @RequestParam(value = "summary_like", required = false) String summaryLike,
+      @ApiParam(value = "Creation date before") @RequestParam(value = "created_at_before", required = false) Date createdAtBefore,
+      @ApiParam(value = "Creation date after") @RequestParam(value = "created_at_after", required = false) Date createdAtAfter,
+      @ApiParam(value = "ISBN prefix") @RequestParam(value = "isbn_prefix", required = false) String isbnPrefix);
+
+  @ApiOperation(value = "Stream all books", notes = "This API can be used to stream the complete collection of books as newline-delimited JSON, one book per line", response = Book.class, responseContainer = "List", tags = {
+      "v0", "book",})
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful operation", response = Book.class, responseContainer = "List"),
+      @ApiResponse(code = 400, message = "Invalid request parameter"),
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
+  @RequestMapping(value = "/book",
+      params = {"stream=true"},
+      method = RequestMethod.GET)
+  ResponseEntity<ResponseBodyEmitter> streamBookList(
+      @ApiParam(value = "Author of the book") @RequestParam(value = "author", required = false) String author,
+      @ApiParam(value = "Title like") @RequestParam(value = "title_like", required = false) String titleLike,
+      @ApiParam(value = "Publish date before") @RequestParam(value = "publish_date_before", required = false) Date publishDateBefore,
+      @ApiParam(value = "Publish date after") @RequestParam(value = "publish_date_after", required = false) Date publishDateAfter,
+      @ApiParam(value = "Summary like") @RequestParam(value = "summary_like", required = false) String summaryLike,
+      @ApiParam(value = "Creation date before") @RequestParam(value = "created_at_before", required = false) Date createdAtBefore,
+      @ApiParam(value = "Creation date after") @RequestParam(value = "created_at_after", required = false) Date createdAtAfter,
+      @ApiParam(value = "ISBN prefix") @RequestParam(value = "isbn_prefix", required = false) String isbnPrefix,
+      @ApiParam(value = "Comma-separated list of the fields to be returned") @RequestParam(value = "fields", required = false) String fields);
+
+  @ApiOperation(value = "Update the single book", notes = "This API can be used to modify the specific book; with If-Match, the book is updated only if its entity tag matches", response = Book.class, tags = {
       "v0", "book",})
   @ApiResponses(value = {
       @ApiResponse(code = 200, message = "Successful operation", response = Book.class),
+      @ApiResponse(code = 400, message = "Invalid request parameter"),
       @ApiResponse(code = 404, message = "Book not found"),
-      @ApiResponse(code = 500, message = "Internal server error")})
+      @ApiResponse(code = 412, message = "Book version mismatch"),
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
   @RequestMapping(value = "/book/{isbn}",
-      produces = {"application/json"},
-      consumes = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.PUT)
-  ResponseEntity<Book> updateBook(
+  CompletableFuture<ResponseEntity<Book>> updateBook(
+      @ApiParam(value = "ISBN of book to update", required = true) @PathVariable("isbn") String isbn,
+      @ApiParam(value = "Updated book", required = true) @RequestBody Book attribute,
+      @ApiParam(value = "Entity tag the stored book must match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch);
+
+  @ApiOperation(value = "Partially update the single book", notes = "This API can be used to modify only some fields of the specific book; a null value removes the field, while isbn and the audit fields cannot be changed; with If-Match, the book is updated only if its entity tag matches", response = Book.class, tags = {
+      "v0", "book",})
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful operation", response = Book.class),
+      @ApiResponse(code = 400, message = "Invalid request parameter"),
+      @ApiResponse(code = 404, message = "Book not found"),
+      @ApiResponse(code = 412, message = "Book version mismatch"),
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
+  @RequestMapping(value = "/book/{isbn}",
+      produces = {"application/json", "application/x-jackson-smile"},
+      consumes = {"application/json", "application/merge-patch+json", "application/x-jackson-smile"},
+      method = RequestMethod.PATCH)
+  CompletableFuture<ResponseEntity<Book>> patchBook(
       @ApiParam(value = "ISBN of book to update", required = true) @PathVariable("isbn") String isbn,
-      @ApiParam(value = "Updated book", required = true) @RequestBody Book attribute);
+      @ApiParam(value = "Fields of the book to be changed", required = true) @RequestBody Map<String, Object> changes,
+      @ApiParam(value = "Entity tag the stored book must match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch);
 
-  @ApiOperation(value = "Delete the single book", notes = "This API can be used to delete a specific book", tags = {
+  @ApiOperation(value = "Delete the single book", notes = "This API can be used to delete a specific book; with If-Match, the book is deleted only if its entity tag matches", tags = {
       "v0", "book",})
   @ApiResponses(value = {
       @ApiResponse(code = 204, message = "Successful operation"),
-      @ApiResponse(code = 500, message = "Internal server error")})
+      @ApiResponse(code = 400, message = "Invalid request parameter"),
+      @ApiResponse(code = 412, message = "Book version mismatch"),
+      @ApiResponse(code = 500, message = "Internal server error"),
+      @ApiResponse(code = 503, message = "Service overloaded")})
   @RequestMapping(value = "/book/{isbn}",
-      produces = {"application/json"},
+      produces = {"application/json", "application/x-jackson-smile"},
       method = RequestMethod.DELETE)
-  ResponseEntity deleteBook(
-      @ApiParam(value = "ISBN of book to delete", required = true) @PathVariable("isbn") String isbn);
+  CompletableFuture<ResponseEntity> deleteBook(
+      @ApiParam(value = "ISBN of book to delete", required = true) @PathVariable("isbn") String isbn,
+      @ApiParam(value = "Entity tag the stored book must match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch);
 }
\ No newline at end of file
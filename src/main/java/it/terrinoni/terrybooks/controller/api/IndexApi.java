@@ -0,0 +1,34 @@
+package it.terrinoni.terrybooks.controller.api;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:12.
+ */
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import it.terrinoni.terrybooks.model.IndexUsage;
+import java.util.List;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+/**
+ * API interface for the book collection indexes; this class is implemented by the related
+ * controller.
+ */
+@Api(value = "index", description = "the indexes API")
+@RequestMapping("/api/v0")
+public interface IndexApi {
+
+  @ApiOperation(value = "Get the index usage statistics", notes = "This API can be used to retrieve the usage statistics of the book collection indexes, along with their reconciliation state against the declared index set", response = IndexUsage.class, responseContainer = "List", tags = {
+      "v0", "index",})
+  @ApiResponses(value = {
+      @ApiResponse(code = 200, message = "Successful operation", response = IndexUsage.class, responseContainer = "List"),
+      @ApiResponse(code = 500, message = "Internal server error")})
+  @RequestMapping(value = "/index",
+      produces = {"application/json"},
+      method = RequestMethod.GET)
+  ResponseEntity<List<IndexUsage>> getIndexUsage();
+}
@@ -4,23 +4,53 @@ package it.terrinoni.terrybooks.controller.impl;
  * Created by Marco Terrinoni, on 21/01/2018 - 01:53.
  */
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.annotations.ApiParam;
+import it.terrinoni.terrybooks.config.AsyncConfig;
+import it.terrinoni.terrybooks.config.JacksonConfig;
 import it.terrinoni.terrybooks.controller.api.BookApi;
 import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BookCount;
+import it.terrinoni.terrybooks.model.BookField;
+import it.terrinoni.terrybooks.model.BookFilter;
+import it.terrinoni.terrybooks.model.BookLookupResult;
+import it.terrinoni.terrybooks.model.BookPage;
+import it.terrinoni.terrybooks.model.BulkDeleteResult;
+import it.terrinoni.terrybooks.model.BulkOperationResult;
+import it.terrinoni.terrybooks.model.CatalogStats;
 import it.terrinoni.terrybooks.service.BookService;
-import java.util.ArrayList;
+import it.terrinoni.terrybooks.service.CatalogStatsService;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
 /**
  * Controller for Book API; this class relies on the associated book service and implements the API
@@ -30,11 +60,26 @@ import org.springframework.web.bind.annotation.RestController;
 public class BookApiController implements BookApi {
 
   private static final Logger log = LoggerFactory.getLogger(BookApiController.class);
-  private static AtomicInteger requestId = new AtomicInteger();
+  private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+  private static final String TOTAL_COUNT = "X-Total-Count";
 
   @Autowired
   BookService bookService;
 
+  @Autowired
+  CatalogStatsService statsService;
+
+  @Autowired
+  ObjectMapper objectMapper;
+
+  @Autowired
+  @Qualifier(AsyncConfig.LOOKUP_EXECUTOR)
+  Executor lookupExecutor;
+
+  @Autowired
+  @Qualifier(AsyncConfig.SCAN_EXECUTOR)
+  Executor scanExecutor;
+
   /**
    * Controller method to store a new book.
    *
@@ -43,13 +88,28 @@ public class BookApiController implements BookApi {
    * @return response entity containing the stored book object
    */
   @Override
-  public ResponseEntity<Book> addBook(
+  public CompletableFuture<ResponseEntity<Book>> addBook(
       @ApiParam(value = "Book to be added", required = true) @RequestBody Book book) {
-    log.info("[{}] New book storage request received", requestId.incrementAndGet());
+    log.info("New book storage request received");
+
+    if (bookService.isGroupCommitEnabled()) {
+      // Completed by the group commit flusher, no executor thread waits for the batch
+      CompletableFuture<ResponseEntity<Book>> response = new CompletableFuture<>();
+      bookService.addBookGrouped(book).whenComplete((res, t) -> {
+        if (t != null) {
+          response.completeExceptionally(t);
+        } else {
+          response.complete(ResponseEntity.ok().eTag(BookETags.of(res, null)).body(res));
+        }
+      });
+      return response;
+    }
 
-    Book res = bookService.addBook(requestId.get(), book);
+    return submit(lookupExecutor, () -> {
+      Book res = bookService.addBook(book);
 
-    return new ResponseEntity<>(res, HttpStatus.OK);
+      return ResponseEntity.ok().eTag(BookETags.of(res, null)).body(res);
+    });
   }
 
   /**
@@ -57,111 +117,528 @@ public class BookApiController implements BookApi {
    *
    * @param bookList list of book objects to be stored
    *
-   * @return response entity containing the list of stored book objects
+   * @return response entity containing the outcome of the storage of every book
    */
   @Override
-  public ResponseEntity<List<Book>> addBooksBulk(
+  public CompletableFuture<ResponseEntity<BulkOperationResult>> addBooksBulk(
       @ApiParam(value = "Books list to be added", required = true) @RequestBody List<Book> bookList) {
-    log.info("[{}] New books list bulk storage request received, books to be stored: {}",
-        requestId.incrementAndGet(), bookList.size());
+    log.info("New books list bulk storage request received, books to be stored: {}",
+        bookList.size());
+
+    return submit(scanExecutor, () -> {
+      BulkOperationResult res = bookService.addBooksBulk(bookList);
 
-    List<Book> resList = new ArrayList<>();
-    bookList.forEach(b -> {
-      Book res = bookService.addBook(requestId.get(), b);
-      resList.add(res);
+      return new ResponseEntity<>(res, HttpStatus.OK);
     });
+  }
+
+  /**
+   * Controller method for bulk partial update of books
+   *
+   * @param items ISBN and fields to be changed of every book
+   *
+   * @return response entity containing the outcome of the update of every book
+   */
+  @Override
+  public CompletableFuture<ResponseEntity<BulkOperationResult>> updateBooksBulk(
+      @ApiParam(value = "ISBN and fields to be changed of every book", required = true) @RequestBody List<Map<String, Object>> items) {
+    log.info("Books list bulk update request received, books to be updated: {}", items.size());
+
+    return submit(scanExecutor, () -> {
+      BulkOperationResult res = bookService.updateBooksBulk(items);
 
-    return new ResponseEntity<>(resList, HttpStatus.OK);
+      return new ResponseEntity<>(res, HttpStatus.OK);
+    });
+  }
+
+  /**
+   * Controller method for bulk removal of books
+   *
+   * @param isbns identifiers of the books to be removed
+   *
+   * @return response entity containing the outcome of the removal of every book
+   */
+  @Override
+  public CompletableFuture<ResponseEntity<BulkOperationResult>> deleteBooksBulk(
+      @ApiParam(value = "ISBNs of books to delete", required = true) @RequestBody List<String> isbns) {
+    log.info("Books list bulk removal request received, books to be removed: {}", isbns.size());
+
+    return submit(scanExecutor, () -> {
+      BulkOperationResult res = bookService.deleteBooksBulk(isbns);
+
+      return new ResponseEntity<>(res, HttpStatus.OK);
+    });
+  }
+
+  /**
+   * Controller method to remove the books that match with the specified parameters.
+   *
+   * @param author            author string parameter
+   * @param titleLike         title string parameter
+   * @param publishDateBefore publication date before the specified parameter
+   * @param publishDateAfter  publication date after the specified parameter
+   * @param summaryLike       summary string parameter
+   * @param createdAtBefore   creation date before the specified parameter
+   * @param createdAtAfter    creation date after the specified parameter
+   * @param isbnPrefix        ISBN prefix parameter
+   *
+   * @return response entity containing the number of books removed
+   */
+  @Override
+  public CompletableFuture<ResponseEntity<BulkDeleteResult>> deleteBooks(
+      @ApiParam(value = "Author of the book") @RequestParam(value = "author", required = false) String author,
+      @ApiParam(value = "Title like") @RequestParam(value = "title_like", required = false) String titleLike,
+      @ApiParam(value = "Publish date before") @RequestParam(value = "publish_date_before", required = false) Date publishDateBefore,
+      @ApiParam(value = "Publish date after") @RequestParam(value = "publish_date_after", required = false) Date publishDateAfter,
+      @ApiParam(value = "Summary like") @RequestParam(value = "summary_like", required = false) String summaryLike,
+      @ApiParam(value = "Creation date before") @RequestParam(value = "created_at_before", required = false) Date createdAtBefore,
+      @ApiParam(value = "Creation date after") @RequestParam(value = "created_at_after", required = false) Date createdAtAfter,
+      @ApiParam(value = "ISBN prefix") @RequestParam(value = "isbn_prefix", required = false) String isbnPrefix) {
+    log.info("Books removal by filter request received");
+
+    BookFilter filter = toFilter(author, titleLike, publishDateBefore, publishDateAfter,
+        summaryLike, createdAtBefore, createdAtAfter, isbnPrefix);
+    return submit(scanExecutor, () -> {
+      BulkDeleteResult res = bookService.deleteBooks(filter);
+
+      return new ResponseEntity<>(res, HttpStatus.OK);
+    });
   }
 
   /**
    * Controller method to retrieve a specific book by specifying its ISBN code.
    *
-   * @param isbn book identifier
+   * @param isbn        book identifier
+   * @param fields      comma-separated list of the fields to be returned
+   * @param ifNoneMatch entity tags of the representations already known by the client
    *
    * @return response entity containing the retrieved book
    */
   @Override
-  public ResponseEntity<Book> getBook(
-      @ApiParam(value = "ISBN of book to return", required = true) @PathVariable("isbn") String isbn) {
-    log.info("[{}] Book retrieval request received", requestId.incrementAndGet());
+  public CompletableFuture<ResponseEntity<Book>> getBook(
+      @ApiParam(value = "ISBN of book to return", required = true) @PathVariable("isbn") String isbn,
+      @ApiParam(value = "Comma-separated list of the fields to be returned") @RequestParam(value = "fields", required = false) String fields,
+      @ApiParam(value = "Entity tags of the representations already known") @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    log.info("Book retrieval request received");
 
-    Book res = bookService.getBook(requestId.get(), isbn);
+    return submit(lookupExecutor, () -> {
+      Book res = bookService.getBook(isbn, fields);
 
-    HttpStatus status;
-    if (res == null) {
-      status = HttpStatus.NOT_FOUND;
-    } else {
-      status = HttpStatus.OK;
-    }
+      if (res == null) {
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+      }
+
+      // Cached books are checked without touching the database, and unchanged ones are not sent
+      String etag = BookETags.of(res, bookService.parseFields(fields));
+      if (BookETags.matches(ifNoneMatch, etag)) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+      }
+      return ResponseEntity.ok().eTag(etag).body(res);
+    });
+  }
+
+  /**
+   * Controller method to retrieve the catalog statistics.
+   *
+   * @return response entity containing the catalog statistics
+   */
+  @Override
+  public CompletableFuture<ResponseEntity<CatalogStats>> getCatalogStats() {
+    log.info("Catalog statistics request received");
 
-    return new ResponseEntity<>(res, status);
+    return submit(lookupExecutor, () -> new ResponseEntity<>(statsService.getStats(),
+        HttpStatus.OK));
   }
 
   /**
-   * Controller method to retrieve the list of books that match with the specified parameters.
+   * Controller method to retrieve many specific books at once.
+   *
+   * @param isbns  book identifiers
+   * @param fields comma-separated list of the fields to be returned
+   *
+   * @return response entity containing the books found and the identifiers of the missing ones
+   */
+  @Override
+  public CompletableFuture<ResponseEntity<BookLookupResult>> lookupBooks(
+      @ApiParam(value = "ISBNs of books to return", required = true) @RequestBody List<String> isbns,
+      @ApiParam(value = "Comma-separated list of the fields to be returned") @RequestParam(value = "fields", required = false) String fields) {
+    log.info("Books lookup request received, books to be retrieved: {}", isbns.size());
+
+    return submit(lookupExecutor, () -> {
+      BookLookupResult res = bookService.lookupBooks(isbns, fields);
+
+      return new ResponseEntity<>(res, HttpStatus.OK);
+    });
+  }
+
+  /**
+   * Controller method to retrieve the list of books that match with the specified parameters. If
+   * the page limit or the continuation token is specified, only a single page is returned, the
+   * following one is linked through the "Link" response header and the number of matching books is
+   * returned through the "X-Total-Count" response header.
    *
    * @param author            author string parameter
    * @param titleLike         title string parameter
    * @param publishDateBefore publication date before the specified parameter
    * @param publishDateAfter  publication date after the specified parameter
+   * @param summaryLike       summary string parameter
+   * @param createdAtBefore   creation date before the specified parameter
+   * @param createdAtAfter    creation date after the specified parameter
+   * @param isbnPrefix        ISBN prefix parameter
+   * @param limit             maximum number of books in the page
+   * @param cursor            continuation token of the page
+   * @param fields            comma-separated list of the fields to be returned
    *
    * @return response entity containing the list of the retrieved books
    */
   @Override
-  public ResponseEntity<List<Book>> getBookList(
+  public CompletableFuture<ResponseEntity<List<Book>>> getBookList(
+      @ApiParam(value = "Author of the book") @RequestParam(value = "author", required = false) String author,
+      @ApiParam(value = "Title like") @RequestParam(value = "title_like", required = false) String titleLike,
+      @ApiParam(value = "Publish date before") @RequestParam(value = "publish_date_before", required = false) Date publishDateBefore,
+      @ApiParam(value = "Publish date after") @RequestParam(value = "publish_date_after", required = false) Date publishDateAfter,
+      @ApiParam(value = "Summary like") @RequestParam(value = "summary_like", required = false) String summaryLike,
+      @ApiParam(value = "Creation date before") @RequestParam(value = "created_at_before", required = false) Date createdAtBefore,
+      @ApiParam(value = "Creation date after") @RequestParam(value = "created_at_after", required = false) Date createdAtAfter,
+      @ApiParam(value = "ISBN prefix") @RequestParam(value = "isbn_prefix", required = false) String isbnPrefix,
+      @ApiParam(value = "Maximum number of books in the page") @RequestParam(value = "limit", required = false) Integer limit,
+      @ApiParam(value = "Continuation token of the page") @RequestParam(value = "cursor", required = false) String cursor,
+      @ApiParam(value = "Comma-separated list of the fields to be returned") @RequestParam(value = "fields", required = false) String fields) {
+    log.info("Book list retrieval request received");
+
+    BookFilter filter = toFilter(author, titleLike, publishDateBefore, publishDateAfter,
+        summaryLike, createdAtBefore, createdAtAfter, isbnPrefix);
+
+    if (limit == null && cursor == null) {
+      return submit(scanExecutor, () -> {
+        List<Book> res = bookService.getBookList(filter, fields);
+
+        return new ResponseEntity<>(res, HttpStatus.OK);
+      });
+    }
+
+    // The current request is bound to this thread only, so the link base is built here
+    UriComponentsBuilder nextLink = ServletUriComponentsBuilder.fromCurrentRequest();
+    return submit(scanExecutor, () -> {
+      BookPage page = bookService.getBookPage(filter, cursor, limit, fields);
+
+      HttpHeaders headers = new HttpHeaders();
+      headers.add(TOTAL_COUNT, bookService.countBooks(filter).toHeaderValue());
+      if (page.getNextCursor() != null) {
+        String next = nextLink.replaceQueryParam("cursor", page.getNextCursor()).toUriString();
+        headers.add(HttpHeaders.LINK, String.format("<%s>; rel=\"next\"", next));
+      }
+
+      return new ResponseEntity<>(page.getBooks(), headers, HttpStatus.OK);
+    });
+  }
+
+  /**
+   * Controller method to count the books that match with the specified parameters, without
+   * retrieving them; the count is returned through the "X-Total-Count" response header too.
+   *
+   * @param author            author string parameter
+   * @param titleLike         title string parameter
+   * @param publishDateBefore publication date before the specified parameter
+   * @param publishDateAfter  publication date after the specified parameter
+   * @param summaryLike       summary string parameter
+   * @param createdAtBefore   creation date before the specified parameter
+   * @param createdAtAfter    creation date after the specified parameter
+   * @param isbnPrefix        ISBN prefix parameter
+   *
+   * @return response entity containing the number of books
+   */
+  @Override
+  public CompletableFuture<ResponseEntity<BookCount>> countBooks(
+      @ApiParam(value = "Author of the book") @RequestParam(value = "author", required = false) String author,
+      @ApiParam(value = "Title like") @RequestParam(value = "title_like", required = false) String titleLike,
+      @ApiParam(value = "Publish date before") @RequestParam(value = "publish_date_before", required = false) Date publishDateBefore,
+      @ApiParam(value = "Publish date after") @RequestParam(value = "publish_date_after", required = false) Date publishDateAfter,
+      @ApiParam(value = "Summary like") @RequestParam(value = "summary_like", required = false) String summaryLike,
+      @ApiParam(value = "Creation date before") @RequestParam(value = "created_at_before", required = false) Date createdAtBefore,
+      @ApiParam(value = "Creation date after") @RequestParam(value = "created_at_after", required = false) Date createdAtAfter,
+      @ApiParam(value = "ISBN prefix") @RequestParam(value = "isbn_prefix", required = false) String isbnPrefix) {
+    log.info("Book count request received");
+
+    BookFilter filter = toFilter(author, titleLike, publishDateBefore, publishDateAfter,
+        summaryLike, createdAtBefore, createdAtAfter, isbnPrefix);
+
+    return submit(scanExecutor, () -> {
+      BookCount res = bookService.countBooks(filter);
+
+      return ResponseEntity.ok().header(TOTAL_COUNT, res.toHeaderValue()).body(res);
+    });
+  }
+
+  /**
+   * Controller method to count the books that match with the specified parameters, without
+   * retrieving them; the count is returned through the "X-Total-Count" response header only.
+   *
+   * @param author            author string parameter
+   * @param titleLike         title string parameter
+   * @param publishDateBefore publication date before the specified parameter
+   * @param publishDateAfter  publication date after the specified parameter
+   * @param summaryLike       summary string parameter
+   * @param createdAtBefore   creation date before the specified parameter
+   * @param createdAtAfter    creation date after the specified parameter
+   * @param isbnPrefix        ISBN prefix parameter
+   *
+   * @return response entity without body
+   */
+  @Override
+  public CompletableFuture<ResponseEntity<Void>> headBookList(
       @ApiParam(value = "Author of the book") @RequestParam(value = "author", required = false) String author,
       @ApiParam(value = "Title like") @RequestParam(value = "title_like", required = false) String titleLike,
       @ApiParam(value = "Publish date before") @RequestParam(value = "publish_date_before", required = false) Date publishDateBefore,
-      @ApiParam(value = "Publish date after") @RequestParam(value = "publish_date_after", required = false) Date publishDateAfter) {
-    log.info("[{}] Book list retrieval request received", requestId.incrementAndGet());
+      @ApiParam(value = "Publish date after") @RequestParam(value = "publish_date_after", required = false) Date publishDateAfter,
+      @ApiParam(value = "Summary like") @RequestParam(value = "summary_like", required = false) String summaryLike,
+      @ApiParam(value = "Creation date before") @RequestParam(value = "created_at_before", required = false) Date createdAtBefore,
+      @ApiParam(value = "Creation date after") @RequestParam(value = "created_at_after", required = false) Date createdAtAfter,
+      @ApiParam(value = "ISBN prefix") @RequestParam(value = "isbn_prefix", required = false) String isbnPrefix) {
+    log.info("Book count request received");
+
+    BookFilter filter = toFilter(author, titleLike, publishDateBefore, publishDateAfter,
+        summaryLike, createdAtBefore, createdAtAfter, isbnPrefix);
 
-    List<Book> res = bookService
-        .getBookList(requestId.get(), author, titleLike, publishDateBefore, publishDateAfter);
+    return submit(scanExecutor, () -> {
+      BookCount res = bookService.countBooks(filter);
 
-    return new ResponseEntity<>(res, HttpStatus.OK);
+      return ResponseEntity.ok().header(TOTAL_COUNT, res.toHeaderValue()).build();
+    });
+  }
+
+  /**
+   * Controller method to stream the list of books that match with the specified parameters; each
+   * book is written as a single line of JSON as soon as it is read from the database cursor.
+   *
+   * @param author            author string parameter
+   * @param titleLike         title string parameter
+   * @param publishDateBefore publication date before the specified parameter
+   * @param publishDateAfter  publication date after the specified parameter
+   * @param summaryLike       summary string parameter
+   * @param createdAtBefore   creation date before the specified parameter
+   * @param createdAtAfter    creation date after the specified parameter
+   * @param isbnPrefix        ISBN prefix parameter
+   * @param fields            comma-separated list of the fields to be returned
+   *
+   * @return response entity containing the emitter of the retrieved books
+   */
+  @Override
+  public ResponseEntity<ResponseBodyEmitter> streamBookList(
+      @ApiParam(value = "Author of the book") @RequestParam(value = "author", required = false) String author,
+      @ApiParam(value = "Title like") @RequestParam(value = "title_like", required = false) String titleLike,
+      @ApiParam(value = "Publish date before") @RequestParam(value = "publish_date_before", required = false) Date publishDateBefore,
+      @ApiParam(value = "Publish date after") @RequestParam(value = "publish_date_after", required = false) Date publishDateAfter,
+      @ApiParam(value = "Summary like") @RequestParam(value = "summary_like", required = false) String summaryLike,
+      @ApiParam(value = "Creation date before") @RequestParam(value = "created_at_before", required = false) Date createdAtBefore,
+      @ApiParam(value = "Creation date after") @RequestParam(value = "created_at_after", required = false) Date createdAtAfter,
+      @ApiParam(value = "ISBN prefix") @RequestParam(value = "isbn_prefix", required = false) String isbnPrefix,
+      @ApiParam(value = "Comma-separated list of the fields to be returned") @RequestParam(value = "fields", required = false) String fields) {
+    log.info("Book list streaming request received");
+
+    BookFilter filter = toFilter(author, titleLike, publishDateBefore, publishDateAfter,
+        summaryLike, createdAtBefore, createdAtAfter, isbnPrefix);
+    // Validated before the response is committed, so an invalid list is still reported
+    Set<BookField> bookFields = bookService.parseFields(fields);
+    ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+    // Rejected here if the scan executor is full, before the response is committed
+    scanExecutor.execute(() -> {
+      try (Stream<Book> books = bookService.streamBookList(filter, fields)) {
+        writeNdjson(books, bookFields, new EmitterOutputStream(emitter));
+        emitter.complete();
+      } catch (Exception ex) {
+        log.error("Book list streaming interrupted, exception: {}", ex.getMessage());
+        emitter.completeWithError(ex);
+      }
+    });
+
+    return ResponseEntity.ok().contentType(NDJSON).body(emitter);
   }
 
   /**
    * Controller method to update a specific book.
    *
-   * @param isbn book unique identifier
-   * @param book book object containing the updates to be applied
+   * @param isbn    book unique identifier
+   * @param book    book object containing the updates to be applied
+   * @param ifMatch entity tag the stored book must match, null to update any version
    *
    * @return response entity containing the updated book
    */
   @Override
-  public ResponseEntity<Book> updateBook(
+  public CompletableFuture<ResponseEntity<Book>> updateBook(
       @ApiParam(value = "ISBN of book to update", required = true) @PathVariable("isbn") String isbn,
-      @ApiParam(value = "Updated book", required = true) @RequestBody Book book) {
-    log.info("[{}] Book update request received", requestId.incrementAndGet());
+      @ApiParam(value = "Updated book", required = true) @RequestBody Book book,
+      @ApiParam(value = "Entity tag the stored book must match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    log.info("Book update request received");
 
-    Book res = bookService.updateBook(requestId.get(), isbn, book);
+    Long expectedVersion = BookETags.expectedVersion(ifMatch);
+    return submit(lookupExecutor, () -> {
+      Book res = bookService.updateBook(isbn, book, expectedVersion);
 
-    HttpStatus status;
-    if (res == null) {
-      status = HttpStatus.NOT_FOUND;
-    } else {
-      status = HttpStatus.OK;
-    }
+      return written(res);
+    });
+  }
 
-    return new ResponseEntity<>(res, status);
+  /**
+   * Controller method to partially update a specific book
+   *
+   * @param isbn    book unique identifier
+   * @param changes fields of the book to be changed
+   * @param ifMatch entity tag the stored book must match, null to update any version
+   *
+   * @return response entity containing the updated book
+   */
+  @Override
+  public CompletableFuture<ResponseEntity<Book>> patchBook(
+      @ApiParam(value = "ISBN of book to update", required = true) @PathVariable("isbn") String isbn,
+      @ApiParam(value = "Fields of the book to be changed", required = true) @RequestBody Map<String, Object> changes,
+      @ApiParam(value = "Entity tag the stored book must match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    log.info("Book patch request received");
+
+    Long expectedVersion = BookETags.expectedVersion(ifMatch);
+    return submit(lookupExecutor, () -> {
+      Book res = bookService.patchBook(isbn, changes, expectedVersion);
+
+      return written(res);
+    });
   }
 
   /**
    * Controller method to remove a specific book
    *
-   * @param isbn book unique identifier
+   * @param isbn    book unique identifier
+   * @param ifMatch entity tag the stored book must match, null to remove any version
    *
    * @return response entity containing the outcome of the delete operation
    */
   @Override
-  public ResponseEntity deleteBook(
-      @ApiParam(value = "ISBN of book to delete", required = true) @PathVariable("isbn") String isbn) {
-    log.info("[{}] Book removal request received", requestId.incrementAndGet());
+  public CompletableFuture<ResponseEntity> deleteBook(
+      @ApiParam(value = "ISBN of book to delete", required = true) @PathVariable("isbn") String isbn,
+      @ApiParam(value = "Entity tag the stored book must match") @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+    log.info("Book removal request received");
 
-    bookService.deleteBook(requestId.get(), isbn);
+    Long expectedVersion = BookETags.expectedVersion(ifMatch);
+    return submit(lookupExecutor, () -> {
+      bookService.deleteBook(isbn, expectedVersion);
 
-    return new ResponseEntity(HttpStatus.NO_CONTENT);
+      return new ResponseEntity(HttpStatus.NO_CONTENT);
+    });
+  }
+
+  // PRIVATE INTERNAL METHODS
+
+  /**
+   * Private internal method that builds the response of a book write, carrying the entity tag of
+   * the updated book.
+   *
+   * @param book updated book, null if not found
+   *
+   * @return response entity containing the updated book
+   */
+  private static ResponseEntity<Book> written(Book book) {
+    if (book == null) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    return ResponseEntity.ok().eTag(BookETags.of(book, null)).body(book);
+  }
+
+  /**
+   * Private internal method that runs the request task on the specified executor. The returned
+   * future completes with the original exception thrown by the task, so it is handled as a
+   * synchronous one; a full executor queue is reported immediately by the rejected execution.
+   *
+   * @param executor executor running the task
+   * @param task     request task
+   * @param <T>      type of the task result
+   *
+   * @return the future result of the task
+   */
+  private static <T> CompletableFuture<T> submit(Executor executor, Supplier<T> task) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    executor.execute(() -> {
+      try {
+        future.complete(task.get());
+      } catch (Throwable t) {
+        future.completeExceptionally(t);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Private internal method that collects the book list query parameters into a book filter.
+   *
+   * @param author            author string parameter
+   * @param titleLike         title string parameter
+   * @param publishDateBefore publication date before the specified parameter
+   * @param publishDateAfter  publication date after the specified parameter
+   * @param summaryLike       summary string parameter
+   * @param createdAtBefore   creation date before the specified parameter
+   * @param createdAtAfter    creation date after the specified parameter
+   * @param isbnPrefix        ISBN prefix parameter
+   *
+   * @return the book filter containing the specified parameters
+   */
+  private BookFilter toFilter(String author, String titleLike, Date publishDateBefore,
+      Date publishDateAfter, String summaryLike, Date createdAtBefore, Date createdAtAfter,
+      String isbnPrefix) {
+    BookFilter filter = new BookFilter(author, titleLike, publishDateBefore, publishDateAfter);
+    filter.setSummaryLike(summaryLike);
+    filter.setCreatedAtBefore(createdAtBefore);
+    filter.setCreatedAtAfter(createdAtAfter);
+    filter.setIsbnPrefix(isbnPrefix);
+    return filter;
+  }
+
+  /**
+   * Private internal method that writes the books to the output stream as newline-delimited JSON.
+   * The generator is not flushed after every book, so data is sent to the client only when the
+   * generator buffer is full.
+   *
+   * @param books  stream of books to be written
+   * @param fields fields to be written, null for the whole books
+   * @param out    response output stream
+   *
+   * @throws IOException if the response cannot be written
+   */
+  private void writeNdjson(Stream<Book> books, Set<BookField> fields, OutputStream out)
+      throws IOException {
+    ObjectWriter writer = objectMapper.writer(JacksonConfig.bookFieldsFilter(fields))
+        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    long count = 0;
+
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+      generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+      generator.setRootValueSeparator(null);
+      for (Iterator<Book> it = books.iterator(); it.hasNext(); count++) {
+        writer.writeValue(generator, it.next());
+        generator.writeRaw('\n');
+      }
+    }
+
+    log.info("{} total books streamed", count);
+  }
+
+  /**
+   * Output stream adapter that sends every written chunk through the response body emitter; the
+   * JSON generator writes its whole buffer at once, so each chunk carries many books.
+   */
+  private static class EmitterOutputStream extends OutputStream {
+
+    private final ResponseBodyEmitter emitter;
+
+    EmitterOutputStream(ResponseBodyEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      emitter.send(Arrays.copyOfRange(b, off, off + len), NDJSON);
+    }
   }
-}
\ No newline at end of file
+}
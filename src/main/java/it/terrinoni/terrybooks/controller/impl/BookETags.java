@@ -0,0 +1,94 @@
+package it.terrinoni.terrybooks.controller.impl;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:42.
+ */
+
+import it.terrinoni.terrybooks.exception.custom.InvalidRequestParameterException;
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BookField;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Entity tags of the single book resources; the tag is derived from the book version, so it is
+ * computed without serializing the book. Projected representations get a distinct tag, since they
+ * carry a different body.
+ */
+final class BookETags {
+
+  private BookETags() {
+  }
+
+  /**
+   * Build the strong entity tag of the specified book representation.
+   *
+   * @param book   book to be returned
+   * @param fields fields to be returned, null for the whole book
+   *
+   * @return the quoted entity tag
+   */
+  static String of(Book book, Set<BookField> fields) {
+    if (fields == null) {
+      return "\"" + book.getVersion() + "\"";
+    }
+    String projection = fields.stream().map(BookField::getJsonName)
+        .collect(Collectors.joining(","));
+    return "\"" + book.getVersion() + "-" + Integer.toHexString(projection.hashCode()) + "\"";
+  }
+
+  /**
+   * Check the If-None-Match header against the entity tag of the current representation, using the
+   * weak comparison.
+   *
+   * @param ifNoneMatch If-None-Match header value, may be null
+   * @param etag        entity tag of the current representation
+   *
+   * @return true if the header matches, so the representation has not been modified
+   */
+  static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.equals("*") || stripWeak(tag).equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Extract the book version expected by the If-Match header; only a single strong entity tag is
+   * supported, since the condition is checked by the database update itself.
+   *
+   * @param ifMatch If-Match header value, may be null
+   *
+   * @return the expected version, null if the header is missing or matches with any version
+   */
+  static Long expectedVersion(String ifMatch) {
+    if (ifMatch == null || ifMatch.trim().equals("*")) {
+      return null;
+    }
+
+    String tag = ifMatch.trim();
+    if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+      throw new InvalidRequestParameterException(
+          String.format("Invalid If-Match header, a single strong entity tag is expected: %s",
+              ifMatch));
+    }
+    String value = tag.substring(1, tag.length() - 1);
+    int projection = value.indexOf('-');
+    try {
+      return Long.parseLong(projection < 0 ? value : value.substring(0, projection));
+    } catch (NumberFormatException nfEx) {
+      throw new InvalidRequestParameterException(
+          String.format("Invalid If-Match header, unknown entity tag: %s", ifMatch));
+    }
+  }
+
+  private static String stripWeak(String tag) {
+    return tag.startsWith("W/") ? tag.substring(2) : tag;
+  }
+}
@@ -0,0 +1,50 @@
+package it.terrinoni.terrybooks.controller.impl;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:15.
+ */
+
+import it.terrinoni.terrybooks.config.JacksonConfig;
+import it.terrinoni.terrybooks.model.BookField;
+import java.util.Set;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+/**
+ * Response body advice restricting the serialized book properties to the ones listed in the
+ * "fields" request parameter of the book API; the parameter is validated by the book service before
+ * the response is written.
+ */
+@ControllerAdvice(assignableTypes = BookApiController.class)
+public class BookFieldsResponseBodyAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+  private static final String FIELDS_PARAMETER = "fields";
+
+  @Override
+  protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer,
+      MediaType contentType, MethodParameter returnType, ServerHttpRequest request,
+      ServerHttpResponse response) {
+    if (!(request instanceof ServletServerHttpRequest)) {
+      return;
+    }
+
+    String fields = ((ServletServerHttpRequest) request).getServletRequest()
+        .getParameter(FIELDS_PARAMETER);
+    Set<BookField> bookFields;
+    try {
+      bookFields = BookField.parse(fields);
+    } catch (IllegalArgumentException iaEx) {
+      // Already reported by the service, e.g. this is the error response
+      return;
+    }
+    if (bookFields != null) {
+      bodyContainer.setFilters(JacksonConfig.bookFieldsFilter(bookFields));
+    }
+  }
+}
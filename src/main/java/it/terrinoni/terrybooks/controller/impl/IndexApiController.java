@@ -0,0 +1,45 @@
+package it.terrinoni.terrybooks.controller.impl;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:12.
+ */
+
+import it.terrinoni.terrybooks.controller.api.IndexApi;
+import it.terrinoni.terrybooks.model.IndexUsage;
+import it.terrinoni.terrybooks.service.IndexService;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller for Index API; this class relies on the associated index service and implements the
+ * API definitions to handle index requests.
+ */
+@RestController
+@Profile("!embedded")
+public class IndexApiController implements IndexApi {
+
+  private static final Logger log = LoggerFactory.getLogger(IndexApiController.class);
+
+  @Autowired
+  IndexService indexService;
+
+  /**
+   * Controller method to retrieve the usage statistics of the book collection indexes.
+   *
+   * @return response entity containing the usage statistics of every index
+   */
+  @Override
+  public ResponseEntity<List<IndexUsage>> getIndexUsage() {
+    log.info("Index usage retrieval request received");
+
+    List<IndexUsage> res = indexService.getIndexUsage();
+
+    return new ResponseEntity<>(res, HttpStatus.OK);
+  }
+}
@@ -0,0 +1,108 @@
+package it.terrinoni.terrybooks.exception;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:36.
+ */
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reporter of the errors returned to the clients; every error is counted by error code, while the
+ * log reports are rate-limited per error code, so a burst of errors (e.g. a bulk import full of
+ * duplicates) cannot flood the log. Reports go through the asynchronous log appenders, so the
+ * request threads never wait for the log output.
+ */
+@Component
+public class ErrorReporter {
+
+  private static final Logger log = LoggerFactory.getLogger(ErrorReporter.class);
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @Value("${custom.errors.report.permits:10}")
+  private int permits;
+
+  @Value("${custom.errors.report.interval:10}")
+  private long interval;
+
+  private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+  private final Map<String, ReportWindow> windows = new ConcurrentHashMap<>();
+
+  /**
+   * Count the specified error and report it, unless the reports of its error code exceeded the
+   * allowed rate; the number of reports suppressed meanwhile is attached to the next one.
+   *
+   * @param code error code
+   * @param ex   original exception
+   */
+  public void report(String code, Throwable ex) {
+    count(code);
+
+    long suppressed = windows.computeIfAbsent(code, c -> new ReportWindow()).acquire();
+    if (suppressed < 0) {
+      return;
+    }
+
+    if (ex.getStackTrace().length == 0) {
+      // Expected condition, the message is enough
+      log.warn("Error {}: {} (suppressed: {})", code, ex.getMessage(), suppressed);
+    } else {
+      log.error("Error {}: {} (suppressed: {})", code, ex.getMessage(), suppressed, ex);
+    }
+  }
+
+  /**
+   * Count the specified error, without reporting it.
+   *
+   * @param code error code
+   */
+  public void count(String code) {
+    counters.computeIfAbsent(code, c -> Counter.builder("api.errors")
+        .description("Errors returned to the clients")
+        .tag("code", c)
+        .register(meterRegistry))
+        .increment();
+  }
+
+  /**
+   * Fixed time window allowing a limited number of reports.
+   */
+  private class ReportWindow {
+
+    private final AtomicLong start = new AtomicLong(System.nanoTime());
+    private final AtomicInteger reported = new AtomicInteger();
+    private final AtomicInteger suppressed = new AtomicInteger();
+
+    /**
+     * Acquire a report permit.
+     *
+     * @return the number of reports suppressed since the last one, -1 if no permit is available
+     */
+    long acquire() {
+      long now = System.nanoTime();
+      long windowStart = start.get();
+      if (now - windowStart >= TimeUnit.SECONDS.toNanos(interval)
+          && start.compareAndSet(windowStart, now)) {
+        reported.set(0);
+      }
+
+      if (reported.incrementAndGet() > permits) {
+        suppressed.incrementAndGet();
+        return -1;
+      }
+      return suppressed.getAndSet(0);
+    }
+  }
+}
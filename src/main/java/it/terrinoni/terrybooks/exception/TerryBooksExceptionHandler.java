@@ -4,10 +4,11 @@ package it.terrinoni.terrybooks.exception;
  * Created by Marco Terrinoni, on 21/01/2018 - 02:57.
  */
 
-import it.terrinoni.terrybooks.exception.custom.KeyDuplicationException;
-import it.terrinoni.terrybooks.exception.custom.MissingIdentifierInRequestException;
-import it.terrinoni.terrybooks.exception.custom.ObjectStorageException;
+import it.terrinoni.terrybooks.exception.custom.TerryBooksException;
 import it.terrinoni.terrybooks.exception.response.ErrorResponseMessage;
+import java.util.concurrent.RejectedExecutionException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -15,11 +16,15 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 
 /**
  * Internal class for dealing with exceptions; every exception mapped in this class can lead to an
- * HTTP error status code, in order to generate specific and self-explicative error code.
+ * HTTP error status code, in order to generate specific and self-explicative error code. Errors are
+ * reported through the error reporter, which counts them and rate-limits their log reports.
  */
 @ControllerAdvice
 public class TerryBooksExceptionHandler {
 
+  @Autowired
+  ErrorReporter errorReporter;
+
   // INTERNAL SERVER ERROR
 
   /**
@@ -31,7 +36,7 @@ public class TerryBooksExceptionHandler {
    */
   @ExceptionHandler(NullPointerException.class)
   public ResponseEntity<ErrorResponseMessage> handleNullPointerException(Exception ex) {
-    ex.printStackTrace();
+    errorReporter.report("0x000", ex);
     return new ResponseEntity<>(new ErrorResponseMessage("0x000", ex.getMessage()),
         HttpStatus.INTERNAL_SERVER_ERROR);
   }
@@ -45,54 +50,46 @@ public class TerryBooksExceptionHandler {
    */
   @ExceptionHandler(RuntimeException.class)
   public ResponseEntity<ErrorResponseMessage> handleRuntimeException(Exception ex) {
-    ex.printStackTrace();
+    errorReporter.report("0x001", ex);
     return new ResponseEntity<>(new ErrorResponseMessage("0x001", ex.getMessage()),
         HttpStatus.INTERNAL_SERVER_ERROR);
   }
 
-  /**
-   * Object storage exception, it redirects to an internal server error notification.
-   *
-   * @param ex original exception
-   *
-   * @return error response message entity containing the error information
-   */
-  @ExceptionHandler(ObjectStorageException.class)
-  public ResponseEntity<ErrorResponseMessage> handleBookStorageException(Exception ex) {
-    ex.printStackTrace();
-    return new ResponseEntity<>(new ErrorResponseMessage("0x002", ex.getMessage()),
-        HttpStatus.INTERNAL_SERVER_ERROR);
-  }
-
-  // BAD REQUEST
+  // DOMAIN ERRORS
 
   /**
-   * Missing identifier in request exception, it redirects to a bad request notification.
+   * Domain exception handler, it redirects to the error code and the HTTP status the exception is
+   * classified with.
    *
    * @param ex original exception
    *
    * @return error response message entity containing the error information
    */
-  @ExceptionHandler(MissingIdentifierInRequestException.class)
-  public ResponseEntity<ErrorResponseMessage> handleMissingIdentifierInRequestException(
-      Exception ex) {
-    ex.printStackTrace();
-    return new ResponseEntity<>(new ErrorResponseMessage("0x003", ex.getMessage()),
-        HttpStatus.BAD_REQUEST);
+  @ExceptionHandler(TerryBooksException.class)
+  public ResponseEntity<ErrorResponseMessage> handleTerryBooksException(TerryBooksException ex) {
+    errorReporter.report(ex.getCode(), ex);
+    return new ResponseEntity<>(new ErrorResponseMessage(ex.getCode(), ex.getMessage()),
+        ex.getStatus());
   }
 
+  // SERVICE UNAVAILABLE
+
   /**
-   * Duplicated key exception, it redirects to a bad request notification.
+   * Rejected execution exception, raised when the queue of a request executor is full; it
+   * redirects to a service unavailable notification, so the client can retry later. The error is
+   * only counted, since it is expected under overload.
    *
    * @param ex original exception
    *
    * @return error response message entity containing the error information
    */
-  @ExceptionHandler(KeyDuplicationException.class)
-  public ResponseEntity<ErrorResponseMessage> handleKeyDuplicationException(Exception ex) {
-    ex.printStackTrace();
-    return new ResponseEntity<>(new ErrorResponseMessage("0x004", ex.getMessage()),
-        HttpStatus.BAD_REQUEST);
+  @ExceptionHandler(RejectedExecutionException.class)
+  public ResponseEntity<ErrorResponseMessage> handleRejectedExecutionException(Exception ex) {
+    errorReporter.count("0x006");
+    HttpHeaders headers = new HttpHeaders();
+    headers.set(HttpHeaders.RETRY_AFTER, "1");
+    return new ResponseEntity<>(
+        new ErrorResponseMessage("0x006", "Service overloaded, retry later"), headers,
+        HttpStatus.SERVICE_UNAVAILABLE);
   }
-
 }
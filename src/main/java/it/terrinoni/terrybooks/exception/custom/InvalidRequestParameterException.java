@@ -0,0 +1,22 @@
+package it.terrinoni.terrybooks.exception.custom;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:05.
+ */
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception identifying an invalid request parameter; this exception is raised when a
+ * request is received with a parameter that is malformed or out of the allowed range.
+ */
+@ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Invalid request parameter")
+public class InvalidRequestParameterException extends TerryBooksException {
+
+  private static final long serialVersionUID = 1L;
+
+  public InvalidRequestParameterException(String message) {
+    super("0x005", HttpStatus.BAD_REQUEST, message);
+  }
+}
@@ -12,11 +12,11 @@ import org.springframework.web.bind.annotation.ResponseStatus;
  * raised whenever the repository is trying to store an object with an already used identifier.
  */
 @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Key already stored")
-public class KeyDuplicationException extends RuntimeException {
+public class KeyDuplicationException extends TerryBooksException {
 
   private static final long serialVersionUID = 1L;
 
   public KeyDuplicationException(String message) {
-    super(message);
+    super("0x004", HttpStatus.BAD_REQUEST, message);
   }
 }
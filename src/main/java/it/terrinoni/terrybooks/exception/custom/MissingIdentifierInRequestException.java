@@ -12,11 +12,11 @@ import org.springframework.web.bind.annotation.ResponseStatus;
  * request is received but the identifier is missing or not valid.
  */
 @ResponseStatus(value = HttpStatus.BAD_REQUEST, reason = "Missing identifier in request")
-public class MissingIdentifierInRequestException extends RuntimeException {
+public class MissingIdentifierInRequestException extends TerryBooksException {
 
   private static final long serialVersionUID = 1L;
 
   public MissingIdentifierInRequestException(String message) {
-    super(message);
+    super("0x003", HttpStatus.BAD_REQUEST, message);
   }
 }
@@ -12,12 +12,12 @@ import org.springframework.web.bind.annotation.ResponseStatus;
  * whenever a generic problem occurs while storing an object through a repository.
  */
 @ResponseStatus(value = HttpStatus.INTERNAL_SERVER_ERROR, reason = "Unknown storage error")
-public class ObjectStorageException extends RuntimeException {
+public class ObjectStorageException extends TerryBooksException {
 
   private static final long serialVersionUID = 1L;
 
   public ObjectStorageException(String message, Throwable cause) {
-    super(message, cause);
+    super("0x002", HttpStatus.INTERNAL_SERVER_ERROR, message, cause);
   }
 
 }
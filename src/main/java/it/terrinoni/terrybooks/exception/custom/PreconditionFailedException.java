@@ -0,0 +1,22 @@
+package it.terrinoni.terrybooks.exception.custom;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:42.
+ */
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Custom exception identifying a failed conditional request; this exception is raised whenever a
+ * conditional write is received but the stored object does not match with the expected version.
+ */
+@ResponseStatus(value = HttpStatus.PRECONDITION_FAILED, reason = "Precondition failed")
+public class PreconditionFailedException extends TerryBooksException {
+
+  private static final long serialVersionUID = 1L;
+
+  public PreconditionFailedException(String message) {
+    super("0x007", HttpStatus.PRECONDITION_FAILED, message);
+  }
+}
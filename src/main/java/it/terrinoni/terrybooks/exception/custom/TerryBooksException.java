@@ -0,0 +1,56 @@
+package it.terrinoni.terrybooks.exception.custom;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:36.
+ */
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Base class of the domain exceptions; every domain exception is pre-classified with the error code
+ * and the HTTP status reported to the client. Exceptions raised by expected conditions (e.g. an
+ * invalid request) are stackless, since their stack trace carries no information and filling it
+ * in is the most expensive part of creating them.
+ */
+public abstract class TerryBooksException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String code;
+  private final HttpStatus status;
+
+  /**
+   * Constructor of a stackless domain exception, raised by an expected condition.
+   *
+   * @param code    error code
+   * @param status  HTTP status
+   * @param message error message
+   */
+  protected TerryBooksException(String code, HttpStatus status, String message) {
+    super(message, null, false, false);
+    this.code = code;
+    this.status = status;
+  }
+
+  /**
+   * Constructor of a domain exception raised by an unexpected condition; the stack trace is kept.
+   *
+   * @param code    error code
+   * @param status  HTTP status
+   * @param message error message
+   * @param cause   original exception
+   */
+  protected TerryBooksException(String code, HttpStatus status, String message, Throwable cause) {
+    super(message, cause);
+    this.code = code;
+    this.status = status;
+  }
+
+  public String getCode() {
+    return code;
+  }
+
+  public HttpStatus getStatus() {
+    return status;
+  }
+}
@@ -0,0 +1,118 @@
+package it.terrinoni.terrybooks.metrics;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:26.
+ */
+
+import com.mongodb.connection.ConnectionPoolSettings;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionAddedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListenerAdapter;
+import com.mongodb.event.ConnectionPoolOpenedEvent;
+import com.mongodb.event.ConnectionRemovedEvent;
+import com.mongodb.event.ConnectionPoolWaitQueueEnteredEvent;
+import com.mongodb.event.ConnectionPoolWaitQueueExitedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mongo connection pool listener that publishes, for every server, the pool size and its maximum,
+ * the number of connections in use, the number of threads waiting for a connection and the time
+ * spent waiting for it. The driver notifies the wait queue events on the waiting thread, so the
+ * wait time is measured per thread.
+ */
+public class ConnectionPoolMetrics extends ConnectionPoolListenerAdapter {
+
+  private final MeterRegistry meterRegistry;
+  private final Map<ServerId, AtomicInteger> size = new ConcurrentHashMap<>();
+  private final Map<ServerId, AtomicInteger> checkedOut = new ConcurrentHashMap<>();
+  private final Map<ServerId, AtomicInteger> waitQueue = new ConcurrentHashMap<>();
+  private final Map<ServerId, Timer> waitTime = new ConcurrentHashMap<>();
+  private final ThreadLocal<Long> waitStart = new ThreadLocal<>();
+
+  public ConnectionPoolMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  public void connectionPoolOpened(ConnectionPoolOpenedEvent event) {
+    ServerId serverId = event.getServerId();
+    Tags tags = Tags.of("server", serverId.getAddress().toString());
+
+    register("mongodb.pool.size", "Open connections of the pool", serverId, tags, size);
+    register("mongodb.pool.checkedout", "Connections of the pool in use", serverId, tags,
+        checkedOut);
+    register("mongodb.pool.waitqueuesize", "Threads waiting for a connection of the pool",
+        serverId, tags, waitQueue);
+    Gauge.builder("mongodb.pool.maxsize", event.getSettings(), ConnectionPoolSettings::getMaxSize)
+        .description("Maximum number of connections of the pool")
+        .tags(tags)
+        .register(meterRegistry);
+    waitTime.put(serverId, Timer.builder("mongodb.pool.wait")
+        .description("Time spent waiting for a connection of the pool")
+        .tags(tags)
+        .publishPercentileHistogram()
+        .register(meterRegistry));
+  }
+
+  @Override
+  public void connectionAdded(ConnectionAddedEvent event) {
+    update(size, event.getConnectionId().getServerId(), 1);
+  }
+
+  @Override
+  public void connectionRemoved(ConnectionRemovedEvent event) {
+    update(size, event.getConnectionId().getServerId(), -1);
+  }
+
+  @Override
+  public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+    update(checkedOut, event.getConnectionId().getServerId(), 1);
+  }
+
+  @Override
+  public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+    update(checkedOut, event.getConnectionId().getServerId(), -1);
+  }
+
+  @Override
+  public void waitQueueEntered(ConnectionPoolWaitQueueEnteredEvent event) {
+    update(waitQueue, event.getServerId(), 1);
+    waitStart.set(System.nanoTime());
+  }
+
+  @Override
+  public void waitQueueExited(ConnectionPoolWaitQueueExitedEvent event) {
+    update(waitQueue, event.getServerId(), -1);
+    Long start = waitStart.get();
+    Timer timer = waitTime.get(event.getServerId());
+    if (start != null && timer != null) {
+      timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+    waitStart.remove();
+  }
+
+  private void register(String name, String description, ServerId serverId, Tags tags,
+      Map<ServerId, AtomicInteger> values) {
+    AtomicInteger value = values.computeIfAbsent(serverId, k -> new AtomicInteger());
+    Gauge.builder(name, value, AtomicInteger::get)
+        .description(description)
+        .tags(tags)
+        .register(meterRegistry);
+  }
+
+  private static void update(Map<ServerId, AtomicInteger> values, ServerId serverId, int delta) {
+    AtomicInteger value = values.get(serverId);
+    if (value != null) {
+      value.addAndGet(delta);
+    }
+  }
+}
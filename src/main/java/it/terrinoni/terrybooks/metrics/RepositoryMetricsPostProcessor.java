@@ -0,0 +1,63 @@
+package it.terrinoni.terrybooks.metrics;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:26.
+ */
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import it.terrinoni.terrybooks.repository.BookRepository;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bean post processor that wraps the book repository with a timer per repository method, tagged
+ * with the outcome of the call; timers publish histogram buckets, so percentiles can be computed on
+ * the scraped data with bounded memory.
+ */
+@Component
+public class RepositoryMetricsPostProcessor implements BeanPostProcessor {
+
+  static final String REPOSITORY_TIMER = "book.repository";
+
+  // Resolved lazily, post processors are created before the other beans
+  @Autowired
+  ObjectFactory<MeterRegistry> meterRegistry;
+
+  @Override
+  public Object postProcessBeforeInitialization(Object bean, String beanName) {
+    return bean;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (!(bean instanceof BookRepository)) {
+      return bean;
+    }
+
+    ProxyFactory proxyFactory = new ProxyFactory(bean);
+    proxyFactory.addInterface(BookRepository.class);
+    proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+      Timer.Sample sample = Timer.start(meterRegistry.getObject());
+      String outcome = "success";
+      try {
+        return invocation.proceed();
+      } catch (Throwable t) {
+        outcome = "error";
+        throw t;
+      } finally {
+        sample.stop(Timer.builder(REPOSITORY_TIMER)
+            .description("Book repository calls")
+            .tag("method", invocation.getMethod().getName())
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry.getObject()));
+      }
+    });
+    return proxyFactory.getProxy();
+  }
+}
@@ -0,0 +1,55 @@
+package it.terrinoni.terrybooks.model;
+
+/*
+ * Created by agent, on 18/10/2026 - 05:06.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class used to convert the authors of a book between the comma-separated form exposed
+ * through the API and the list stored in the book collection, where every author is a separate
+ * entry of the multikey index.
+ */
+public final class Authors {
+
+  private static final String SEPARATOR = ", ";
+
+  private Authors() {
+  }
+
+  /**
+   * Split the comma-separated authors into the distinct trimmed names, in order of occurrence;
+   * blank names are skipped.
+   *
+   * @param authors comma-separated authors
+   *
+   * @return the distinct author names, null if the authors are null or blank
+   */
+  public static List<String> split(String authors) {
+    if (authors == null) {
+      return null;
+    }
+
+    List<String> res = new ArrayList<>();
+    for (String author : authors.split(",")) {
+      String name = author.trim();
+      if (!name.isEmpty() && !res.contains(name)) {
+        res.add(name);
+      }
+    }
+    return res.isEmpty() ? null : res;
+  }
+
+  /**
+   * Join the author names into the comma-separated form.
+   *
+   * @param authors author names
+   *
+   * @return the comma-separated authors, null if the list is null or empty
+   */
+  public static String join(List<String> authors) {
+    return authors == null || authors.isEmpty() ? null : String.join(SEPARATOR, authors);
+  }
+}
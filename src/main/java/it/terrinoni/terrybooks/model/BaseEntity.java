@@ -5,6 +5,7 @@ package it.terrinoni.terrybooks.model;
  */
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonProperty.Access;
 import io.swagger.annotations.ApiModelProperty;
 import java.io.Serializable;
 import java.util.Date;
@@ -24,6 +25,9 @@ public class BaseEntity implements Serializable {
   @Field("last_modified_at")
   private Date lastModifiedAt;
 
+  @Field("version")
+  private long version;
+
   BaseEntity() {
     createdAt = new Date();
     lastModifiedAt = null;
@@ -53,4 +57,21 @@ public class BaseEntity implements Serializable {
   public void setLastModifiedAt(Date lastModifiedAt) {
     this.lastModifiedAt = lastModifiedAt;
   }
+
+  /**
+   * Getter for the version; it is incremented by the database on every update and cannot be set
+   * through the API. Objects stored before the version was introduced have version 0.
+   *
+   * @return the version of the object
+   */
+  @JsonProperty(value = "version", access = Access.READ_ONLY)
+  @ApiModelProperty(value = "Audit field object version, incremented on every update",
+      readOnly = true)
+  public long getVersion() {
+    return version;
+  }
+
+  public void setVersion(long version) {
+    this.version = version;
+  }
 }
\ No newline at end of file
@@ -4,17 +4,20 @@ package it.terrinoni.terrybooks.model;
  * Created by Marco Terrinoni, on 21/01/2018 - 01:53.
  */
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.annotations.ApiModelProperty;
+import it.terrinoni.terrybooks.search.Trigrams;
 import java.io.Serializable;
 import java.util.Date;
+import java.util.List;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
 /**
- * Book model class.
+ * Book model class. Indexes are not declared here but in the main properties file, see
+ * {@link it.terrinoni.terrybooks.config.BookIndexProperties}.
  */
 @Document(collection = "book")
 public class Book extends BaseEntity implements Serializable {
@@ -27,9 +30,15 @@ public class Book extends BaseEntity implements Serializable {
   @Field("title")
   private String title;
 
-  @Indexed
+  @Field("title_trigrams")
+  private List<String> titleTrigrams;
+
+  @Field("authors")
+  private List<String> authors;
+
+  // Comma-separated authors of the documents not migrated yet, read only as a fallback
   @Field("author")
-  private String author;
+  private String legacyAuthor;
 
   @Field("publish_date")
   private Date publishDate;
@@ -46,13 +55,29 @@ public class Book extends BaseEntity implements Serializable {
   public Book(String isbn, String title, String author, Date publishDate,
       String summary, String note) {
     this.isbn = isbn;
-    this.title = title;
-    this.author = author;
+    setTitle(title);
+    setAuthor(author);
     this.publishDate = publishDate;
     this.summary = summary;
     this.note = note;
   }
 
+  /**
+   * Copy the specified book, including the audit fields.
+   *
+   * @param book book to be copied
+   *
+   * @return the copy of the book
+   */
+  public static Book copyOf(Book book) {
+    Book copy = new Book(book.isbn, book.title, null, book.publishDate, book.summary, book.note);
+    copy.setAuthors(book.getAuthors());
+    copy.setCreatedAt(book.getCreatedAt());
+    copy.setLastModifiedAt(book.getLastModifiedAt());
+    copy.setVersion(book.getVersion());
+    return copy;
+  }
+
   @JsonProperty("isbn")
   @ApiModelProperty(value = "Book unique identifier")
   public String getIsbn() {
@@ -67,16 +92,47 @@ public class Book extends BaseEntity implements Serializable {
 
   public void setTitle(String title) {
     this.title = title;
+    this.titleTrigrams = Trigrams.of(title);
+  }
+
+  /**
+   * Getter for the title trigrams; they are stored along with the book to index title substring
+   * searches and are kept in sync with the title, so they are never exposed through the API.
+   *
+   * @return the distinct lower case trigrams of the title
+   */
+  @JsonIgnore
+  @ApiModelProperty(hidden = true)
+  public List<String> getTitleTrigrams() {
+    return titleTrigrams;
   }
 
   @JsonProperty("author")
   @ApiModelProperty(value = "Comma-separated authors of the book")
   public String getAuthor() {
-    return author;
+    return Authors.join(getAuthors());
   }
 
   public void setAuthor(String author) {
-    this.author = author;
+    setAuthors(Authors.split(author));
+  }
+
+  /**
+   * Getter for the authors; they are stored as a list, so a book is found by any of its authors
+   * through the multikey index, while the API keeps exposing them as a comma-separated string. The
+   * documents not migrated yet expose the authors of their legacy comma-separated field.
+   *
+   * @return the distinct author names
+   */
+  @JsonIgnore
+  @ApiModelProperty(hidden = true)
+  public List<String> getAuthors() {
+    return authors != null ? authors : Authors.split(legacyAuthor);
+  }
+
+  public void setAuthors(List<String> authors) {
+    this.authors = authors;
+    this.legacyAuthor = null;
   }
 
   @JsonProperty("publish_date")
@@ -114,7 +170,7 @@ public class Book extends BaseEntity implements Serializable {
     return "Book{" +
         "isbn='" + isbn + '\'' +
         ", title='" + title + '\'' +
-        ", author='" + author + '\'' +
+        ", authors=" + getAuthors() +
         ", publishDate=" + publishDate +
         ", summary='" + summary + '\'' +
         ", note='" + note + '\'' +
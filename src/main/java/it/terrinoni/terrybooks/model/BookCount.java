@@ -0,0 +1,60 @@
+package it.terrinoni.terrybooks.model;
+
+/*
+ * Created by agent, on 18/10/2026 - 05:15.
+ */
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModelProperty;
+import java.io.Serializable;
+
+/**
+ * Book count model class, used to report the number of books that match with a filter; large
+ * counts are capped, so only a lower bound is known.
+ */
+public class BookCount implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private long count;
+  private boolean capped;
+
+  public BookCount() {
+  }
+
+  public BookCount(long count, boolean capped) {
+    this.count = count;
+    this.capped = capped;
+  }
+
+  @JsonProperty("count")
+  @ApiModelProperty(value = "Number of books, the lower bound if the count is capped")
+  public long getCount() {
+    return count;
+  }
+
+  public void setCount(long count) {
+    this.count = count;
+  }
+
+  @JsonProperty("capped")
+  @ApiModelProperty(value = "Whether more books than the count match with the filter")
+  public boolean isCapped() {
+    return capped;
+  }
+
+  public void setCapped(boolean capped) {
+    this.capped = capped;
+  }
+
+  /**
+   * Format the count as the value of the total count header, e.g. "10000+" if capped.
+   *
+   * @return the formatted count
+   */
+  @JsonIgnore
+  public String toHeaderValue() {
+    return capped ? count + "+" : String.valueOf(count);
+  }
+}
@@ -0,0 +1,122 @@
+package it.terrinoni.terrybooks.model;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:15.
+ */
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Book fields exposed through the API; each field maps the JSON property name to the model property
+ * name, used to build the query projections and the partial updates.
+ */
+public enum BookField {
+
+  ISBN("isbn", "isbn", Book::getIsbn, null),
+  TITLE("title", "title", Book::getTitle, (b, v) -> b.setTitle((String) v)),
+  AUTHOR("author", "authors", Book::getAuthors, BookField::setAuthors),
+  PUBLISH_DATE("publish_date", "publishDate", Book::getPublishDate,
+      (b, v) -> b.setPublishDate((Date) v)),
+  SUMMARY("summary", "summary", Book::getSummary, (b, v) -> b.setSummary((String) v)),
+  NOTE("note", "note", Book::getNote, (b, v) -> b.setNote((String) v)),
+  CREATED_AT("created_at", "createdAt", Book::getCreatedAt, null),
+  LAST_MODIFIED_AT("last_modified_at", "lastModifiedAt", Book::getLastModifiedAt, null),
+  VERSION("version", "version", Book::getVersion, null);
+
+  private final String jsonName;
+  private final String property;
+  private final Function<Book, Object> accessor;
+  private final BiConsumer<Book, Object> mutator;
+
+  BookField(String jsonName, String property, Function<Book, Object> accessor,
+      BiConsumer<Book, Object> mutator) {
+    this.jsonName = jsonName;
+    this.property = property;
+    this.accessor = accessor;
+    this.mutator = mutator;
+  }
+
+  public String getJsonName() {
+    return jsonName;
+  }
+
+  public String getProperty() {
+    return property;
+  }
+
+  /**
+   * Read the value of the field from the specified book.
+   *
+   * @param book book to be read
+   *
+   * @return the value of the field
+   */
+  public Object valueOf(Book book) {
+    return accessor.apply(book);
+  }
+
+  /**
+   * Write the value of the field into the specified book, as a partial update does; a null value
+   * removes the field.
+   *
+   * @param book  book to be updated
+   * @param value new value of the field
+   *
+   * @throws IllegalArgumentException if the field cannot be updated
+   */
+  public void applyTo(Book book, Object value) {
+    if (mutator == null) {
+      throw new IllegalArgumentException(String.format("Field %s cannot be updated", jsonName));
+    }
+    mutator.accept(book, value);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void setAuthors(Book book, Object authors) {
+    book.setAuthors((List<String>) authors);
+  }
+
+  /**
+   * Look up the field by its JSON property name.
+   *
+   * @param jsonName JSON property name
+   *
+   * @return the related field, null if no field has the specified name
+   */
+  public static BookField fromJsonName(String jsonName) {
+    return Arrays.stream(values())
+        .filter(f -> f.jsonName.equals(jsonName))
+        .findFirst().orElse(null);
+  }
+
+  /**
+   * Parse a comma-separated list of JSON property names.
+   *
+   * @param fields comma-separated JSON property names
+   *
+   * @return the related fields, null if the list is null or blank
+   *
+   * @throws IllegalArgumentException if a name does not match with any field
+   */
+  public static Set<BookField> parse(String fields) {
+    if (fields == null || fields.trim().isEmpty()) {
+      return null;
+    }
+
+    Set<BookField> res = EnumSet.noneOf(BookField.class);
+    for (String name : fields.split(",")) {
+      BookField field = fromJsonName(name.trim());
+      if (field == null) {
+        throw new IllegalArgumentException("Unknown book field: " + name.trim());
+      }
+      res.add(field);
+    }
+    return res;
+  }
+}
@@ -0,0 +1,169 @@
+package it.terrinoni.terrybooks.model;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:08.
+ */
+
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * Book filter class, used to collect the optional parameters of a book list query; every parameter
+ * left null is ignored. String parameters are normalized, so blank values are treated as missing.
+ */
+public class BookFilter implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private String isbnPrefix;
+  private String author;
+  private String titleLike;
+  private String summaryLike;
+  private Date publishDateBefore;
+  private Date publishDateAfter;
+  private Date createdAtBefore;
+  private Date createdAtAfter;
+
+  public BookFilter() {
+  }
+
+  public BookFilter(String author, String titleLike, Date publishDateBefore,
+      Date publishDateAfter) {
+    setAuthor(author);
+    setTitleLike(titleLike);
+    setPublishDateBefore(publishDateBefore);
+    setPublishDateAfter(publishDateAfter);
+  }
+
+  public String getIsbnPrefix() {
+    return isbnPrefix;
+  }
+
+  public void setIsbnPrefix(String isbnPrefix) {
+    this.isbnPrefix = normalize(isbnPrefix);
+  }
+
+  public String getAuthor() {
+    return author;
+  }
+
+  public void setAuthor(String author) {
+    this.author = normalize(author);
+  }
+
+  public String getTitleLike() {
+    return titleLike;
+  }
+
+  public void setTitleLike(String titleLike) {
+    this.titleLike = normalize(titleLike);
+  }
+
+  public String getSummaryLike() {
+    return summaryLike;
+  }
+
+  public void setSummaryLike(String summaryLike) {
+    this.summaryLike = normalize(summaryLike);
+  }
+
+  public Date getPublishDateBefore() {
+    return publishDateBefore;
+  }
+
+  public void setPublishDateBefore(Date publishDateBefore) {
+    this.publishDateBefore = publishDateBefore;
+  }
+
+  public Date getPublishDateAfter() {
+    return publishDateAfter;
+  }
+
+  public void setPublishDateAfter(Date publishDateAfter) {
+    this.publishDateAfter = publishDateAfter;
+  }
+
+  public Date getCreatedAtBefore() {
+    return createdAtBefore;
+  }
+
+  public void setCreatedAtBefore(Date createdAtBefore) {
+    this.createdAtBefore = createdAtBefore;
+  }
+
+  public Date getCreatedAtAfter() {
+    return createdAtAfter;
+  }
+
+  public void setCreatedAtAfter(Date createdAtAfter) {
+    this.createdAtAfter = createdAtAfter;
+  }
+
+  /**
+   * Check whether no parameter is specified, i.e. the filter matches with the whole collection.
+   *
+   * @return true if no parameter is specified, false otherwise
+   */
+  public boolean isEmpty() {
+    return isbnPrefix == null && author == null && titleLike == null && summaryLike == null
+        && publishDateBefore == null && publishDateAfter == null && createdAtBefore == null
+        && createdAtAfter == null;
+  }
+
+  /**
+   * Check whether the publish date is restricted; the pages of such lists are ordered by publish
+   * date and ISBN, see {@link it.terrinoni.terrybooks.repository.BookRepositoryCustom}.
+   *
+   * @return true if a publish date bound is specified, false otherwise
+   */
+  public boolean hasPublishDateRange() {
+    return publishDateBefore != null || publishDateAfter != null;
+  }
+
+  private static String normalize(String value) {
+    if (value == null || value.trim().isEmpty()) {
+      return null;
+    }
+    return value.trim();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    BookFilter that = (BookFilter) o;
+    return Objects.equals(isbnPrefix, that.isbnPrefix) &&
+        Objects.equals(author, that.author) &&
+        Objects.equals(titleLike, that.titleLike) &&
+        Objects.equals(summaryLike, that.summaryLike) &&
+        Objects.equals(publishDateBefore, that.publishDateBefore) &&
+        Objects.equals(publishDateAfter, that.publishDateAfter) &&
+        Objects.equals(createdAtBefore, that.createdAtBefore) &&
+        Objects.equals(createdAtAfter, that.createdAtAfter);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(isbnPrefix, author, titleLike, summaryLike, publishDateBefore,
+        publishDateAfter, createdAtBefore, createdAtAfter);
+  }
+
+  @Override
+  public String toString() {
+    return "BookFilter{" +
+        "isbnPrefix='" + isbnPrefix + '\'' +
+        ", author='" + author + '\'' +
+        ", titleLike='" + titleLike + '\'' +
+        ", summaryLike='" + summaryLike + '\'' +
+        ", publishDateBefore=" + publishDateBefore +
+        ", publishDateAfter=" + publishDateAfter +
+        ", createdAtBefore=" + createdAtBefore +
+        ", createdAtAfter=" + createdAtAfter +
+        '}';
+  }
+}
@@ -0,0 +1,50 @@
+package it.terrinoni.terrybooks.model;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:48.
+ */
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModelProperty;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Book lookup result model class; it contains the books found among the requested ones and the
+ * identifiers of the missing ones, both in the same order of the request.
+ */
+public class BookLookupResult implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private List<Book> books;
+  private List<String> missing;
+
+  public BookLookupResult() {
+  }
+
+  public BookLookupResult(List<Book> books, List<String> missing) {
+    this.books = books;
+    this.missing = missing;
+  }
+
+  @JsonProperty("books")
+  @ApiModelProperty(value = "Books found, in the same order of the request")
+  public List<Book> getBooks() {
+    return books;
+  }
+
+  public void setBooks(List<Book> books) {
+    this.books = books;
+  }
+
+  @JsonProperty("missing")
+  @ApiModelProperty(value = "ISBN of the books not found, in the same order of the request")
+  public List<String> getMissing() {
+    return missing;
+  }
+
+  public void setMissing(List<String> missing) {
+    this.missing = missing;
+  }
+}
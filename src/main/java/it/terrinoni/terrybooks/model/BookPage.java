@@ -0,0 +1,35 @@
+package it.terrinoni.terrybooks.model;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:05.
+ */
+
+import java.util.List;
+
+/**
+ * Book page class, used to return a single page of a book list together with the continuation
+ * token of the following page.
+ */
+public class BookPage {
+
+  private final List<Book> books;
+  private final String nextCursor;
+
+  public BookPage(List<Book> books, String nextCursor) {
+    this.books = books;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<Book> getBooks() {
+    return books;
+  }
+
+  /**
+   * Getter for the continuation token of the following page.
+   *
+   * @return the opaque continuation token, null if this is the last page
+   */
+  public String getNextCursor() {
+    return nextCursor;
+  }
+}
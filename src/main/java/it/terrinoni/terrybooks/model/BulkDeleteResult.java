@@ -0,0 +1,36 @@
+package it.terrinoni.terrybooks.model;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:51.
+ */
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModelProperty;
+import java.io.Serializable;
+
+/**
+ * Bulk delete result model class, used to report the outcome of a removal by filter.
+ */
+public class BulkDeleteResult implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private long deleted;
+
+  public BulkDeleteResult() {
+  }
+
+  public BulkDeleteResult(long deleted) {
+    this.deleted = deleted;
+  }
+
+  @JsonProperty("deleted")
+  @ApiModelProperty(value = "Number of books removed")
+  public long getDeleted() {
+    return deleted;
+  }
+
+  public void setDeleted(long deleted) {
+    this.deleted = deleted;
+  }
+}
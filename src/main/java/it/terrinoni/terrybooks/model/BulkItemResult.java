@@ -0,0 +1,79 @@
+package it.terrinoni.terrybooks.model;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:06.
+ */
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModelProperty;
+import java.io.Serializable;
+
+/**
+ * Bulk item result model class, used to report the outcome of a single item of a bulk operation.
+ */
+@JsonInclude(Include.NON_NULL)
+public class BulkItemResult implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Outcome of a single item of a bulk operation.
+   */
+  public enum Status {
+    INSERTED, UPDATED, DELETED, DUPLICATE, NOT_FOUND, FAILED
+  }
+
+  private String isbn;
+  private Status status;
+  private String message;
+
+  public BulkItemResult() {
+  }
+
+  public BulkItemResult(String isbn, Status status, String message) {
+    this.isbn = isbn;
+    this.status = status;
+    this.message = message;
+  }
+
+  @JsonProperty("isbn")
+  @ApiModelProperty(value = "Book unique identifier")
+  public String getIsbn() {
+    return isbn;
+  }
+
+  public void setIsbn(String isbn) {
+    this.isbn = isbn;
+  }
+
+  @JsonProperty("status")
+  @ApiModelProperty(value = "Outcome of the operation on the book")
+  public Status getStatus() {
+    return status;
+  }
+
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+
+  @JsonProperty("message")
+  @ApiModelProperty(value = "Error description, if the operation on the book failed")
+  public String getMessage() {
+    return message;
+  }
+
+  public void setMessage(String message) {
+    this.message = message;
+  }
+
+  @Override
+  public String toString() {
+    return "BulkItemResult{" +
+        "isbn='" + isbn + '\'' +
+        ", status=" + status +
+        ", message='" + message + '\'' +
+        '}';
+  }
+}
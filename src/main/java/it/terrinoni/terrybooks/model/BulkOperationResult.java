@@ -0,0 +1,49 @@
+package it.terrinoni.terrybooks.model;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:06.
+ */
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModelProperty;
+import it.terrinoni.terrybooks.model.BulkItemResult.Status;
+import java.io.Serializable;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk operation result model class; it contains the outcome of every item of a bulk operation, in
+ * the same order of the request, along with the number of items for each outcome.
+ */
+public class BulkOperationResult implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private List<BulkItemResult> items;
+
+  public BulkOperationResult() {
+  }
+
+  public BulkOperationResult(List<BulkItemResult> items) {
+    this.items = items;
+  }
+
+  @JsonProperty("summary")
+  @ApiModelProperty(value = "Number of items for each outcome")
+  public Map<Status, Integer> getSummary() {
+    Map<Status, Integer> summary = new EnumMap<>(Status.class);
+    items.forEach(i -> summary.merge(i.getStatus(), 1, Integer::sum));
+    return summary;
+  }
+
+  @JsonProperty("items")
+  @ApiModelProperty(value = "Outcome of every item, in the same order of the request")
+  public List<BulkItemResult> getItems() {
+    return items;
+  }
+
+  public void setItems(List<BulkItemResult> items) {
+    this.items = items;
+  }
+}
@@ -0,0 +1,122 @@
+package it.terrinoni.terrybooks.model;
+
+/*
+ * Created by agent, on 18/10/2026 - 05:11.
+ */
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModelProperty;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Catalog statistics model class; it contains the number of books, overall, per author and per
+ * publish year. The statistics are built from counters identified by a key, see
+ * {@link #keysOf(Book)}.
+ */
+public class CatalogStats implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final String TOTAL_KEY = "total";
+  public static final String AUTHOR_KEY_PREFIX = "author:";
+  public static final String YEAR_KEY_PREFIX = "year:";
+
+  private long total;
+  private Map<String, Long> authors;
+  private Map<Integer, Long> years;
+
+  public CatalogStats() {
+  }
+
+  public CatalogStats(long total, Map<String, Long> authors, Map<Integer, Long> years) {
+    this.total = total;
+    this.authors = authors;
+    this.years = years;
+  }
+
+  /**
+   * Build the statistics from the counters; counters without a positive value, left behind by
+   * drifted increments until the next reconciliation, are not reported.
+   *
+   * @param counters value of every counter, by key
+   *
+   * @return the catalog statistics
+   */
+  public static CatalogStats of(Map<String, Long> counters) {
+    long total = 0;
+    Map<String, Long> authors = new TreeMap<>();
+    Map<Integer, Long> years = new TreeMap<>();
+    counters.forEach((key, count) -> {
+      if (count <= 0) {
+        return;
+      }
+      if (key.startsWith(AUTHOR_KEY_PREFIX)) {
+        authors.put(key.substring(AUTHOR_KEY_PREFIX.length()), count);
+      } else if (key.startsWith(YEAR_KEY_PREFIX)) {
+        years.put(Integer.valueOf(key.substring(YEAR_KEY_PREFIX.length())), count);
+      }
+    });
+    if (counters.containsKey(TOTAL_KEY)) {
+      total = Math.max(counters.get(TOTAL_KEY), 0);
+    }
+    return new CatalogStats(total, authors, years);
+  }
+
+  /**
+   * List the keys of the counters the specified book is counted in: the total, every author and
+   * the publish year, in UTC as the MongoDB date operators.
+   *
+   * @param book book to be counted
+   *
+   * @return the keys of the counters of the book
+   */
+  public static List<String> keysOf(Book book) {
+    List<String> keys = new ArrayList<>();
+    keys.add(TOTAL_KEY);
+    if (book.getAuthors() != null) {
+      book.getAuthors().forEach(a -> keys.add(AUTHOR_KEY_PREFIX + a));
+    }
+    if (book.getPublishDate() != null) {
+      Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+      calendar.setTime(book.getPublishDate());
+      keys.add(YEAR_KEY_PREFIX + calendar.get(Calendar.YEAR));
+    }
+    return keys;
+  }
+
+  @JsonProperty("total")
+  @ApiModelProperty(value = "Number of books")
+  public long getTotal() {
+    return total;
+  }
+
+  public void setTotal(long total) {
+    this.total = total;
+  }
+
+  @JsonProperty("authors")
+  @ApiModelProperty(value = "Number of books of every author")
+  public Map<String, Long> getAuthors() {
+    return authors;
+  }
+
+  public void setAuthors(Map<String, Long> authors) {
+    this.authors = authors;
+  }
+
+  @JsonProperty("years")
+  @ApiModelProperty(value = "Number of books published in every year")
+  public Map<Integer, Long> getYears() {
+    return years;
+  }
+
+  public void setYears(Map<Integer, Long> years) {
+    this.years = years;
+  }
+}
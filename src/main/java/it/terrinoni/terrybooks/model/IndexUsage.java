@@ -0,0 +1,97 @@
+package it.terrinoni.terrybooks.model;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:12.
+ */
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.annotations.ApiModelProperty;
+import java.io.Serializable;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Index usage model class, used to report the usage statistics of a single index of the book
+ * collection along with its reconciliation state.
+ */
+public class IndexUsage implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private String name;
+  private Map<String, Object> keys;
+  private boolean declared;
+  private boolean present;
+  private Long accesses;
+  private Date since;
+
+  public IndexUsage() {
+  }
+
+  public IndexUsage(String name, Map<String, Object> keys, boolean declared, boolean present) {
+    this.name = name;
+    this.keys = keys;
+    this.declared = declared;
+    this.present = present;
+  }
+
+  @JsonProperty("name")
+  @ApiModelProperty(value = "Index name")
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  @JsonProperty("keys")
+  @ApiModelProperty(value = "Indexed document fields and their direction")
+  public Map<String, Object> getKeys() {
+    return keys;
+  }
+
+  public void setKeys(Map<String, Object> keys) {
+    this.keys = keys;
+  }
+
+  @JsonProperty("declared")
+  @ApiModelProperty(value = "Whether the index is part of the declared index set")
+  public boolean isDeclared() {
+    return declared;
+  }
+
+  public void setDeclared(boolean declared) {
+    this.declared = declared;
+  }
+
+  @JsonProperty("present")
+  @ApiModelProperty(value = "Whether the index exists in the database")
+  public boolean isPresent() {
+    return present;
+  }
+
+  public void setPresent(boolean present) {
+    this.present = present;
+  }
+
+  @JsonProperty("accesses")
+  @ApiModelProperty(value = "Number of operations that used the index since the counter start")
+  public Long getAccesses() {
+    return accesses;
+  }
+
+  public void setAccesses(Long accesses) {
+    this.accesses = accesses;
+  }
+
+  @JsonProperty("since")
+  @ApiModelProperty(value = "Start of the access counter, usually the last server restart")
+  public Date getSince() {
+    return since;
+  }
+
+  public void setSince(Date since) {
+    this.since = since;
+  }
+}
@@ -0,0 +1,139 @@
+package it.terrinoni.terrybooks.repository;
+
+/*
+ * Created by agent, on 18/10/2026 - 05:06.
+ */
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import it.terrinoni.terrybooks.cache.BookCache;
+import it.terrinoni.terrybooks.cache.BookListCache;
+import it.terrinoni.terrybooks.model.Authors;
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.service.CatalogStatsService;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+/**
+ * Startup component that migrates the books stored with the comma-separated author string to the
+ * author list; books written through the service already store the list. The migration runs in
+ * background and walks the collection with a cursor, so it neither delays the startup nor loads the
+ * collection in memory. A book updated in the meantime is not overwritten.
+ *
+ * <p>The aggregation of the catalog statistics reads the author list only, so their reconciliation
+ * is held until the migration completes.
+ */
+@Component
+@Profile("!embedded")
+public class AuthorsMigration implements ApplicationListener<ApplicationReadyEvent> {
+
+  private static final Logger log = LoggerFactory.getLogger(AuthorsMigration.class);
+
+  private static final String LEGACY_FIELD = "author";
+  private static final String FIELD = "authors";
+
+  @Autowired
+  MongoTemplate mongoTemplate;
+
+  @Autowired
+  BookCache bookCache;
+
+  @Autowired
+  BookListCache bookListCache;
+
+  @Autowired
+  CatalogStatsService statsService;
+
+  @Value("${custom.bulk.batchsize:1000}")
+  private int batchSize;
+
+  @PostConstruct
+  void holdStatsReconciliation() {
+    // Held before the scheduled tasks start, so the startup reconciliation waits as well
+    statsService.holdReconciliation();
+  }
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    Thread worker = new Thread(this::migrate, "authors-migration");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Split the author string of every book not migrated yet into the author list, removing the
+   * author string.
+   */
+  void migrate() {
+    // Only the legacy field is needed, so the documents are read as such
+    DBObject query = new BasicDBObject(FIELD, new BasicDBObject("$exists", false))
+        .append(LEGACY_FIELD, new BasicDBObject("$exists", true));
+    DBObject projection = new BasicDBObject(LEGACY_FIELD, 1);
+
+    long migrated = 0;
+    try (DBCursor documents = mongoTemplate.getCollection(
+        mongoTemplate.getCollectionName(Book.class)).find(query, projection)) {
+      BulkOperations bulk = null;
+      int pending = 0;
+      while (documents.hasNext()) {
+        DBObject document = documents.next();
+        if (bulk == null) {
+          bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, Book.class);
+        }
+        bulk.updateOne(notMigrated(document.get("_id")), toUpdate(document.get(LEGACY_FIELD)));
+
+        if (++pending == batchSize) {
+          bulk.execute();
+          migrated += pending;
+          bulk = null;
+          pending = 0;
+        }
+      }
+      if (bulk != null) {
+        bulk.execute();
+        migrated += pending;
+      }
+    } catch (RuntimeException rEx) {
+      // The reconciliation stays held, as it would drop the authors of the books not migrated
+      log.error("Authors migration interrupted after {} books, catalog statistics not reconciled "
+          + "until the next startup, exception: {}", migrated, rEx.getMessage());
+      return;
+    }
+
+    if (migrated > 0) {
+      // Cached books may have been loaded before their migration
+      bookCache.invalidateAll();
+      bookListCache.bumpVersion();
+    }
+    statsService.releaseReconciliation();
+    log.info("Authors migration completed, {} books migrated", migrated);
+  }
+
+  private static Query notMigrated(Object isbn) {
+    return new Query(Criteria.where("isbn").is(isbn).and(FIELD).exists(false));
+  }
+
+  private static Update toUpdate(Object author) {
+    List<String> authors = author instanceof String ? Authors.split((String) author) : null;
+    Update update = new Update().unset(LEGACY_FIELD);
+    if (authors != null) {
+      update.set(FIELD, authors);
+    }
+    return update;
+  }
+}
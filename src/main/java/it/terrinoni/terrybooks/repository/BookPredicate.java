@@ -0,0 +1,143 @@
+package it.terrinoni.terrybooks.repository;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:08.
+ */
+
+import it.terrinoni.terrybooks.model.Authors;
+import it.terrinoni.terrybooks.model.BookFilter;
+import it.terrinoni.terrybooks.search.Trigrams;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.MongoRegexCreator;
+import org.springframework.data.repository.query.parser.Part.Type;
+
+/**
+ * Predicates supported by the book list queries; each predicate translates a single field of the
+ * book filter into a query criteria. A new filter only requires a new constant here.
+ */
+enum BookPredicate {
+
+  ISBN_PREFIX("isbn", "_id") {
+    @Override
+    Criteria toCriteria(BookFilter filter) {
+      // Anchored and case-sensitive, so it can be resolved by a range scan on the index
+      if (filter.getIsbnPrefix() == null) {
+        return null;
+      }
+      return Criteria.where(property).regex("^" + escape(filter.getIsbnPrefix()));
+    }
+  },
+  AUTHOR("authors", "authors") {
+    @Override
+    Criteria toCriteria(BookFilter filter) {
+      // Any single author is an equality on the multikey index, several authors must all match
+      List<String> authors = Authors.split(filter.getAuthor());
+      if (authors == null) {
+        return null;
+      }
+      Criteria current = authors.size() == 1 ? Criteria.where(property).is(authors.get(0))
+          : Criteria.where(property).all(authors);
+
+      // Books not reached by the authors migration yet are matched on the legacy string
+      List<Criteria> legacy = new ArrayList<>();
+      legacy.add(Criteria.where(property).exists(false));
+      authors.forEach(a -> legacy.add(Criteria.where("legacyAuthor").regex(
+          "(^|,)\\s*" + escape(a) + "\\s*(,|$)")));
+      return new Criteria().orOperator(current,
+          new Criteria().andOperator(legacy.toArray(new Criteria[0])));
+    }
+  },
+  PUBLISH_DATE("publishDate", "publish_date") {
+    @Override
+    Criteria toCriteria(BookFilter filter) {
+      return range(property, filter.getPublishDateBefore(), filter.getPublishDateAfter());
+    }
+  },
+  CREATED_AT("createdAt", "created_at") {
+    @Override
+    Criteria toCriteria(BookFilter filter) {
+      return range(property, filter.getCreatedAtBefore(), filter.getCreatedAtAfter());
+    }
+  },
+  TITLE_LIKE("title", "title_trigrams") {
+    @Override
+    Criteria toCriteria(BookFilter filter) {
+      List<String> trigrams = Trigrams.of(filter.getTitleLike());
+      if (trigrams.isEmpty()) {
+        // Too short to be resolved through the trigram index
+        return contains(property, filter.getTitleLike());
+      }
+      // The trigram index narrows down the candidates, the regular expression checks them; books
+      // not reached by the trigram backfill yet are checked by the regular expression only
+      return Criteria.where(property).regex(containsRegex(filter.getTitleLike()))
+          .orOperator(Criteria.where("titleTrigrams").all(trigrams),
+              Criteria.where("titleTrigrams").exists(false));
+    }
+  },
+  SUMMARY_LIKE("summary", "summary") {
+    // Deliberately not indexed: alone it scans the whole collection, combined with an indexed
+    // predicate it only checks the books selected through the index
+    @Override
+    Criteria toCriteria(BookFilter filter) {
+      return contains(property, filter.getSummaryLike());
+    }
+  };
+
+  private static final Pattern REGEX_METACHARACTERS = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+
+  /**
+   * Name of the model property, used to build the criteria.
+   */
+  final String property;
+
+  /**
+   * Name of the document field, used to check whether the predicate is served by an index.
+   */
+  final String field;
+
+  BookPredicate(String property, String field) {
+    this.property = property;
+    this.field = field;
+  }
+
+  /**
+   * Translate the related field of the filter into a query criteria.
+   *
+   * @param filter book filter
+   *
+   * @return the query criteria, null if the related field of the filter is not specified
+   */
+  abstract Criteria toCriteria(BookFilter filter);
+
+  private static Criteria range(String property, Date before, Date after) {
+    if (before == null && after == null) {
+      return null;
+    }
+
+    Criteria criteria = Criteria.where(property);
+    if (before != null) {
+      criteria.lt(before);
+    }
+    if (after != null) {
+      criteria.gt(after);
+    }
+    return criteria;
+  }
+
+  private static String escape(String value) {
+    return REGEX_METACHARACTERS.matcher(value).replaceAll("\\\\$0");
+  }
+
+  private static Criteria contains(String property, String value) {
+    return value == null ? null : Criteria.where(property).regex(containsRegex(value));
+  }
+
+  private static String containsRegex(String value) {
+    // Same regular expression generated by the derived "Contains" query methods
+    return MongoRegexCreator.INSTANCE.toRegularExpression(value, Type.CONTAINING);
+  }
+}
@@ -0,0 +1,76 @@
+package it.terrinoni.terrybooks.repository;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:08.
+ */
+
+import it.terrinoni.terrybooks.model.BookFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+/**
+ * Dynamic query builder for book list queries; it translates any combination of the book filter
+ * parameters into a single query. The index is chosen by the query planner, whatever the order of
+ * the predicates; combinations without any predicate on an indexed field are reported, since they
+ * require a full collection scan.
+ */
+class BookQueryBuilder {
+
+  private static final Logger log = LoggerFactory.getLogger(BookQueryBuilder.class);
+
+  private final Set<String> indexedFields;
+
+  /**
+   * Constructor of the query builder.
+   *
+   * @param indexedFields document fields that are the leading field of an index
+   */
+  BookQueryBuilder(Set<String> indexedFields) {
+    this.indexedFields = indexedFields;
+  }
+
+  /**
+   * Build the query matching with the specified filter; an empty filter matches with the whole
+   * collection. Several criteria are combined through a single conjunction, so criteria on the same
+   * field or with the same operators never overwrite each other.
+   *
+   * @param filter book filter
+   * @param extra  further criteria the books must match, after the filter predicates
+   *
+   * @return the query matching with the specified filter
+   */
+  Query build(BookFilter filter, Criteria... extra) {
+    Map<BookPredicate, Criteria> criteria = new EnumMap<>(BookPredicate.class);
+    for (BookPredicate predicate : BookPredicate.values()) {
+      Criteria c = predicate.toCriteria(filter);
+      if (c != null) {
+        criteria.put(predicate, c);
+      }
+    }
+
+    Set<BookPredicate> predicates = criteria.keySet();
+    if (!predicates.isEmpty()
+        && predicates.stream().noneMatch(p -> indexedFields.contains(p.field))) {
+      log.warn("Book list query not served by any index, predicates: {}", predicates);
+    }
+
+    List<Criteria> conjunction = new ArrayList<>(criteria.values());
+    conjunction.addAll(Arrays.asList(extra));
+
+    Query query = new Query();
+    if (conjunction.size() == 1) {
+      query.addCriteria(conjunction.get(0));
+    } else if (conjunction.size() > 1) {
+      query.addCriteria(new Criteria().andOperator(conjunction.toArray(new Criteria[0])));
+    }
+    return query;
+  }
+}
@@ -5,181 +5,64 @@ package it.terrinoni.terrybooks.repository;
  */
 
 import it.terrinoni.terrybooks.model.Book;
-import java.util.Date;
-import java.util.List;
-import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.repository.Repository;
 
 /**
- * Spring Data basic repository; it can be used to interact with the MongoDB instance.
+ * Spring Data basic repository; it can be used to interact with the MongoDB instance. Book list
+ * queries are built dynamically from a book filter by the custom repository fragment. Only the CRUD
+ * methods used by the services are exposed, so that every storage backend implements them all.
  */
-public interface BookRepository extends MongoRepository<Book, String> {
+public interface BookRepository extends Repository<Book, String>, BookRepositoryCustom {
 
   /**
-   * Query method to retrieve the list of books that match with the author name, book title, and
-   * publish date (before and after).
+   * Insert method to store a new book; it fails if the ISBN already exists.
    *
-   * @param author            author name
-   * @param title             book title
-   * @param publishDateBefore publish date before
-   * @param publishDateAfter  publish date after
+   * @param book book to be stored
+   * @param <S>  book type
    *
-   * @return the list of books that match with the specified parameters
+   * @return the stored book
    */
-  List<Book> findAllByAuthorAndTitleContainsAndPublishDateBeforeAndPublishDateAfter(String author,
-      String title, Date publishDateBefore, Date publishDateAfter);
+  <S extends Book> S insert(S book);
 
   /**
-   * Query method to retrieve the list of books that match with the author name, book title, and
-   * publish date (before).
+   * Save method to store the book, replacing the one with the same ISBN if any.
    *
-   * @param author            author name
-   * @param title             book title
-   * @param publishDateBefore publish date before
+   * @param book book to be stored
+   * @param <S>  book type
    *
-   * @return the list of books that match with the specified parameters
+   * @return the stored book
    */
-  List<Book> findAllByAuthorAndTitleContainsAndPublishDateBefore(String author, String title,
-      Date publishDateBefore);
+  <S extends Book> S save(S book);
 
   /**
-   * Query method to retrieve the list of books that match with the author name, book title, and
-   * publish date (after).
+   * Query method to retrieve the whole book identified by the specified ISBN.
    *
-   * @param author           author name
-   * @param title            book title
-   * @param publishDateAfter publish date after
+   * @param isbn book unique identifier
    *
-   * @return the list of books that match with the specified parameters
+   * @return the retrieved book if exists, null otherwise
    */
-  List<Book> findAllByAuthorAndTitleContainsAndPublishDateAfter(String author, String title,
-      Date publishDateAfter);
+  Book findOne(String isbn);
 
   /**
-   * Query method to retrieve the list of books that match with the author name, and book title.
+   * Query method to check whether the book identified by the specified ISBN exists.
    *
-   * @param author author name
-   * @param title  book title
+   * @param isbn book unique identifier
    *
-   * @return the list of books that match with the specified parameters
+   * @return true if the book exists
    */
-  List<Book> findAllByAuthorAndTitleContains(String author, String title);
+  boolean exists(String isbn);
 
   /**
-   * Query method to retrieve the list of books that match with the author name, and publish date
-   * (before and after).
+   * Query method to count every stored book.
    *
-   * @param author            author name
-   * @param publishDateBefore publish date before
-   * @param publishDateAfter  publish date after
-   *
-   * @return the list of books that match with the specified parameters
-   */
-  List<Book> findAllByAuthorAndPublishDateBeforeAndPublishDateAfter(String author,
-      Date publishDateBefore, Date publishDateAfter);
-
-  /**
-   * Query method to retrieve the list of books that match with the author name, and publish date
-   * (before).
-   *
-   * @param author            author name
-   * @param publishDateBefore publish date before
-   *
-   * @return the list of books that match with the specified parameters
-   */
-  List<Book> findAllByAuthorAndPublishDateBefore(String author, Date publishDateBefore);
-
-  /**
-   * Query method to retrieve the list of books that match with the author name, and publish date
-   * (after).
-   *
-   * @param author           author name
-   * @param publishDateAfter publish date after
-   *
-   * @return the list of books that match with the specified parameters
-   */
-  List<Book> findAllByAuthorAndPublishDateAfter(String author, Date publishDateAfter);
-
-  /**
-   * Query method to retrieve the list of books that match with the author name.
-   *
-   * @param author author name
-   *
-   * @return the list of books that match with the specified parameters
-   */
-  List<Book> findAllByAuthor(String author);
-
-  /**
-   * Query method to retrieve the list of books that match with the book title, and publish date
-   * (before and after).
-   *
-   * @param title             book title
-   * @param publishDateBefore publish date before
-   * @param publishDateAfter  publish date after
-   *
-   * @return the list of books that match with the specified parameters
-   */
-  List<Book> findAllByTitleContainsAndPublishDateBeforeAndPublishDateAfter(String title,
-      Date publishDateBefore, Date publishDateAfter);
-
-  /**
-   * Query method to retrieve the list of books that match with the book title, and publish date
-   * (before).
-   *
-   * @param title             book title
-   * @param publishDateBefore publish date before
-   *
-   * @return the list of books that match with the specified parameters
-   */
-  List<Book> findAllByTitleContainsAndPublishDateBefore(String title, Date publishDateBefore);
-
-  /**
-   * Query method to retrieve the list of books that match with the book title, and publish date
-   * (after).
-   *
-   * @param title            book title
-   * @param publishDateAfter publish date after
-   *
-   * @return the list of books that match with the specified parameters
-   */
-  List<Book> findAllByTitleContainsAndPublishDateAfter(String title, Date publishDateAfter);
-
-  /**
-   * Query method to retrieve the list of books that match with the book title.
-   *
-   * @param title book title
-   *
-   * @return the list of books that match with the specified parameters
+   * @return the number of books
    */
-  List<Book> findAllByTitleContains(String title);
+  long count();
 
   /**
-   * Query method to retrieve the list of books that match with the publish date (before and
-   * after).
+   * Delete method to remove the book identified by the specified ISBN, if any.
    *
-   * @param publishDateBefore publish date before
-   * @param publishDateAfter  publish date after
-   *
-   * @return the list of books that match with the specified parameters
-   */
-  List<Book> findAllByPublishDateBeforeAndPublishDateAfter(Date publishDateBefore,
-      Date publishDateAfter);
-
-  /**
-   * Query method to retrieve the list of books that match with the publish date (before).
-   *
-   * @param publishDateBefore publish date before
-   *
-   * @return the list of books that match with the specified parameters
+   * @param isbn book unique identifier
    */
-  List<Book> findAllByPublishDateBefore(Date publishDateBefore);
-
-  /**
-   * Query method to retrieve the list of books that match with the publish date (after).
-   *
-   * @param publishDateAfter publish date after
-   *
-   * @return the list of books that match with the specified parameters
-   */
-  List<Book> findAllByPublishDateAfter(Date publishDateAfter);
-
+  void delete(String isbn);
 }
@@ -0,0 +1,171 @@
+package it.terrinoni.terrybooks.repository;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:04.
+ */
+
+import com.mongodb.WriteConcern;
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BookField;
+import it.terrinoni.terrybooks.model.BookFilter;
+import it.terrinoni.terrybooks.model.BulkItemResult;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Custom repository fragment; it contains the query methods that cannot be expressed as Spring Data
+ * derived queries and are implemented manually on top of the Mongo template.
+ */
+public interface BookRepositoryCustom {
+
+  /**
+   * Query method to retrieve the book identified by the specified ISBN, loading only the specified
+   * fields.
+   *
+   * @param isbn   book unique identifier
+   * @param fields fields to be loaded, null to load the whole book
+   *
+   * @return the retrieved book if exists, null otherwise
+   */
+  Book findOne(String isbn, Set<BookField> fields);
+
+  /**
+   * Query method to retrieve the books identified by the specified ISBNs with a single query,
+   * loading only the specified fields; missing books are not reported.
+   *
+   * @param isbns  book unique identifiers
+   * @param fields fields to be loaded, null to load the whole books
+   *
+   * @return the retrieved books, in no particular order
+   */
+  List<Book> findMany(Collection<String> isbns, Set<BookField> fields);
+
+  /**
+   * Query method to retrieve the list of books that match with the specified filter; an empty
+   * filter matches with the whole collection.
+   *
+   * @param filter book filter
+   * @param fields fields to be loaded, null to load the whole books
+   *
+   * @return the list of books that match with the specified filter
+   */
+  List<Book> findAll(BookFilter filter, Set<BookField> fields);
+
+  /**
+   * Query method to count the books that match with the specified filter, without loading them; an
+   * empty filter returns the number of books estimated from the collection metadata.
+   *
+   * @param filter book filter
+   * @param limit  maximum number of books to be counted, 0 for no limit
+   *
+   * @return the number of books that match with the specified filter, up to the limit
+   */
+  long count(BookFilter filter, int limit);
+
+  /**
+   * Query method to lazily retrieve the books that match with the specified filter. The returned
+   * stream is backed by a database cursor, so it must be closed once consumed.
+   *
+   * @param filter book filter
+   * @param fields fields to be loaded, null to load the whole books
+   *
+   * @return the stream of books that match with the specified filter
+   */
+  Stream<Book> streamAll(BookFilter filter, Set<BookField> fields);
+
+  /**
+   * Query method to retrieve a single page of the books that match with the specified filter,
+   * ordered by publish date and ISBN if the filter restricts the publish date, by ISBN otherwise.
+   * The page starts right after the specified book, so every page is served by a seek on an index
+   * ending with the same keys instead of skipping the previous results.
+   *
+   * @param filter book filter
+   * @param after  last book of the previous page, holding its ISBN and, if the filter restricts
+   *               the publish date, its publish date; null for the first page
+   * @param limit  maximum number of books in the page
+   * @param fields fields to be loaded, null to load the whole books; the keys of the order are
+   *               loaded anyway
+   *
+   * @return the page of books that match with the specified filter
+   */
+  List<Book> findPage(BookFilter filter, Book after, int limit, Set<BookField> fields);
+
+  /**
+   * Bulk method to store a batch of new books with a single unordered bulk write; a failing book
+   * does not prevent the following ones from being stored.
+   *
+   * @param books books to be stored
+   *
+   * @return the outcome of every book, in the same order of the input list
+   */
+  List<BulkItemResult> insertAll(List<Book> books);
+
+  /**
+   * Bulk method to store a batch of new books with a single unordered bulk write, acknowledged with
+   * the specified write concern; a failing book does not prevent the following ones from being
+   * stored.
+   *
+   * @param books        books to be stored
+   * @param writeConcern write concern of the bulk write
+   *
+   * @return the outcome of every book, in the same order of the input list
+   */
+  List<BulkItemResult> insertAll(List<Book> books, WriteConcern writeConcern);
+
+  /**
+   * Bulk method to apply a partial update to a batch of books with a single unordered bulk write;
+   * every update is applied as a partial update, and a failing one does not prevent the following
+   * ones from being applied.
+   *
+   * @param changes changes of every book to be updated, by ISBN
+   *
+   * @return the outcome of every book, in the same order of the changes
+   */
+  List<BulkItemResult> updateMany(Map<String, Map<BookField, Object>> changes);
+
+  /**
+   * Bulk method to remove a batch of books with a single write.
+   *
+   * @param isbns book unique identifiers
+   *
+   * @return the outcome of every book, in the same order of the input list
+   */
+  List<BulkItemResult> deleteMany(List<String> isbns);
+
+  /**
+   * Bulk method to remove every book that matches with the specified filter.
+   *
+   * @param filter book filter
+   *
+   * @return the number of books removed
+   */
+  long deleteMatching(BookFilter filter);
+
+  /**
+   * Update method to apply a partial update to the book identified by the specified ISBN; only the
+   * specified fields are written, along with the last modification timestamp, while the version is
+   * incremented by the database. The update and the read of the previous book take a single round
+   * trip, and the updated book is rebuilt from the previous one and the changes.
+   *
+   * @param isbn            book unique identifier
+   * @param changes         new value of every field to be updated, a null value removes the field
+   * @param expectedVersion version the stored book must have, null to update any version
+   *
+   * @return the book before and after the update if exists with the expected version, null
+   *     otherwise
+   */
+  BookRevision patch(String isbn, Map<BookField, Object> changes, Long expectedVersion);
+
+  /**
+   * Delete method to remove the book identified by the specified ISBN.
+   *
+   * @param isbn            book unique identifier
+   * @param expectedVersion version the stored book must have, null to remove any version
+   *
+   * @return the removed book if existed with the expected version, null otherwise
+   */
+  Book delete(String isbn, Long expectedVersion);
+}
@@ -0,0 +1,415 @@
+package it.terrinoni.terrybooks.repository;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:04.
+ */
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.model.DBCollectionCountOptions;
+import it.terrinoni.terrybooks.config.BookIndexProperties;
+import it.terrinoni.terrybooks.config.MongoClientProperties;
+import it.terrinoni.terrybooks.config.MongoConfig;
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BookField;
+import it.terrinoni.terrybooks.model.BookFilter;
+import it.terrinoni.terrybooks.model.BulkItemResult;
+import it.terrinoni.terrybooks.model.BulkItemResult.Status;
+import it.terrinoni.terrybooks.search.Trigrams;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.StreamUtils;
+
+/**
+ * Implementation of the custom repository fragment; Spring Data merges this class into the book
+ * repository proxy.
+ */
+public class BookRepositoryImpl implements BookRepositoryCustom {
+
+  private static final int DUPLICATE_KEY_ERROR = 11000;
+  private static final String LEGACY_AUTHOR = "legacyAuthor";
+
+  private final MongoTemplate mongoTemplate;
+  private final MongoTemplate scanMongoTemplate;
+  private final BookQueryBuilder queryBuilder;
+  private final long lookupMaxTime;
+  private final long scanMaxTime;
+  private final ReadPreference scanReadPreference;
+  private final QueryMapper queryMapper;
+  private final MongoPersistentEntity<?> bookEntity;
+
+  @Autowired
+  public BookRepositoryImpl(MongoTemplate mongoTemplate,
+      @Qualifier(MongoConfig.SCAN_TEMPLATE) MongoTemplate scanMongoTemplate,
+      BookIndexProperties indexProperties, MongoClientProperties clientProperties) {
+    this.mongoTemplate = mongoTemplate;
+    this.scanMongoTemplate = scanMongoTemplate;
+    this.lookupMaxTime = clientProperties.getOperations().getLookup().getMaxTime();
+    this.scanMaxTime = clientProperties.getOperations().getScan().getMaxTime();
+    this.scanReadPreference = ReadPreference
+        .valueOf(clientProperties.getOperations().getScan().getReadPreference());
+    this.queryMapper = new QueryMapper(scanMongoTemplate.getConverter());
+    this.bookEntity = scanMongoTemplate.getConverter().getMappingContext()
+        .getPersistentEntity(Book.class);
+    // The declared index set is the reference, missing indexes are created at startup
+    Set<String> indexedFields = new HashSet<>();
+    indexedFields.add("_id");
+    indexProperties.getIndexes().forEach(i -> indexedFields.add(i.getLeadingField()));
+    this.queryBuilder = new BookQueryBuilder(indexedFields);
+  }
+
+  @Override
+  public Book findOne(String isbn, Set<BookField> fields) {
+    Query query = new Query(Criteria.where("isbn").is(isbn));
+    project(query, fields);
+    limitTime(query, lookupMaxTime);
+
+    return mongoTemplate.findOne(query, Book.class);
+  }
+
+  @Override
+  public List<Book> findMany(Collection<String> isbns, Set<BookField> fields) {
+    Query query = new Query(Criteria.where("isbn").in(isbns));
+    project(query, fields);
+    limitTime(query, lookupMaxTime);
+
+    return mongoTemplate.find(query, Book.class);
+  }
+
+  @Override
+  public List<Book> findAll(BookFilter filter, Set<BookField> fields) {
+    Query query = queryBuilder.build(filter);
+    project(query, fields);
+    limitTime(query, scanMaxTime);
+
+    return scanMongoTemplate.find(query, Book.class);
+  }
+
+  @Override
+  public long count(BookFilter filter, int limit) {
+    DBCollectionCountOptions options = new DBCollectionCountOptions()
+        .readPreference(scanReadPreference);
+    if (scanMaxTime > 0) {
+      options.maxTime(scanMaxTime, TimeUnit.MILLISECONDS);
+    }
+    DBCollection collection = scanMongoTemplate.getCollection(
+        scanMongoTemplate.getCollectionName(Book.class));
+    if (filter.isEmpty()) {
+      // A count without query is answered from the collection metadata, no document is read
+      return collection.getCount(new BasicDBObject(), options);
+    }
+
+    // The template count ignores limit and time limit, so the count is run by the driver; the
+    // predicates on indexed fields are counted on the index keys, without fetching the documents
+    DBObject query = queryMapper.getMappedObject(queryBuilder.build(filter).getQueryObject(),
+        bookEntity);
+    return collection.getCount(query, options.limit(limit));
+  }
+
+  @Override
+  public Stream<Book> streamAll(BookFilter filter, Set<BookField> fields) {
+    Query query = queryBuilder.build(filter);
+    project(query, fields);
+    limitTime(query, scanMaxTime);
+
+    return StreamUtils.createStreamFromIterator(scanMongoTemplate.stream(query, Book.class));
+  }
+
+  @Override
+  public List<Book> findPage(BookFilter filter, Book after, int limit, Set<BookField> fields) {
+    boolean byPublishDate = filter.hasPublishDateRange();
+    Query query;
+    if (after == null) {
+      query = queryBuilder.build(filter);
+    } else if (byPublishDate) {
+      Date publishDate = after.getPublishDate();
+      query = queryBuilder.build(filter, new Criteria().orOperator(
+          Criteria.where("publishDate").gt(publishDate),
+          Criteria.where("publishDate").is(publishDate).and("isbn").gt(after.getIsbn())));
+    } else {
+      // The ISBN prefix predicate may already constrain the key, so both bounds are kept
+      query = queryBuilder.build(filter, Criteria.where("isbn").gt(after.getIsbn()));
+    }
+    if (byPublishDate && fields != null && !fields.contains(BookField.PUBLISH_DATE)) {
+      // Needed by the continuation token of the following page
+      fields = new HashSet<>(fields);
+      fields.add(BookField.PUBLISH_DATE);
+    }
+    project(query, fields);
+
+    Sort sort = new Sort(Direction.ASC, "isbn");
+    if (byPublishDate) {
+      sort = new Sort(Direction.ASC, "publishDate").and(sort);
+    }
+    query.with(sort).limit(limit);
+    limitTime(query, scanMaxTime);
+
+    return scanMongoTemplate.find(query, Book.class);
+  }
+
+  @Override
+  public List<BulkItemResult> insertAll(List<Book> books) {
+    List<BulkItemResult> results = new ArrayList<>(books.size());
+    books.forEach(b -> results.add(new BulkItemResult(b.getIsbn(), Status.INSERTED, null)));
+
+    try {
+      mongoTemplate.bulkOps(BulkMode.UNORDERED, Book.class).insert(books).execute();
+    } catch (BulkOperationException boEx) {
+      // Only the failed books are reported, the other ones have been stored anyway
+      reportInsertErrors(boEx.getErrors(), results);
+    }
+
+    return results;
+  }
+
+  @Override
+  public List<BulkItemResult> insertAll(List<Book> books, WriteConcern writeConcern) {
+    List<BulkItemResult> results = new ArrayList<>(books.size());
+    books.forEach(b -> results.add(new BulkItemResult(b.getIsbn(), Status.INSERTED, null)));
+
+    // The template bulk operations always use the default write concern, so the driver is used
+    BulkWriteOperation bulk = mongoTemplate.getCollection(
+        mongoTemplate.getCollectionName(Book.class)).initializeUnorderedBulkOperation();
+    books.forEach(b -> {
+      DBObject document = new BasicDBObject();
+      mongoTemplate.getConverter().write(b, document);
+      bulk.insert(document);
+    });
+
+    try {
+      bulk.execute(writeConcern);
+    } catch (BulkWriteException bwEx) {
+      reportInsertErrors(bwEx.getWriteErrors(), results);
+    }
+
+    return results;
+  }
+
+  /**
+   * Report the failed books of a bulk insert; duplicate keys are reported as such.
+   *
+   * @param errors  errors of the bulk insert
+   * @param results outcome of every book, in the same order of the bulk insert
+   */
+  private static void reportInsertErrors(List<BulkWriteError> errors,
+      List<BulkItemResult> results) {
+    errors.forEach(e -> {
+      BulkItemResult result = results.get(e.getIndex());
+      result.setStatus(e.getCode() == DUPLICATE_KEY_ERROR ? Status.DUPLICATE : Status.FAILED);
+      result.setMessage(e.getMessage());
+    });
+  }
+
+  @Override
+  public List<BulkItemResult> updateMany(Map<String, Map<BookField, Object>> changes) {
+    List<BulkItemResult> results = new ArrayList<>(changes.size());
+    changes.keySet().forEach(i -> results.add(new BulkItemResult(i, Status.UPDATED, null)));
+
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, Book.class);
+    Date now = new Date();
+    changes.forEach((isbn, c) -> bulk.updateOne(byIsbn(isbn, null), toUpdate(c, now)));
+
+    int matched;
+    int failed = 0;
+    try {
+      matched = bulk.execute().getMatchedCount();
+    } catch (BulkOperationException boEx) {
+      for (BulkWriteError e : boEx.getErrors()) {
+        BulkItemResult result = results.get(e.getIndex());
+        result.setStatus(Status.FAILED);
+        result.setMessage(e.getMessage());
+        failed++;
+      }
+      matched = boEx.getResult().getMatchedCount();
+    }
+
+    if (matched + failed < results.size()) {
+      // The bulk write only reports how many books matched, so the missing ones are looked up
+      Set<String> existing = existingIsbns(results.stream()
+          .filter(r -> r.getStatus() == Status.UPDATED)
+          .map(BulkItemResult::getIsbn)
+          .collect(Collectors.toList()));
+      results.stream()
+          .filter(r -> r.getStatus() == Status.UPDATED && !existing.contains(r.getIsbn()))
+          .forEach(r -> r.setStatus(Status.NOT_FOUND));
+    }
+
+    return results;
+  }
+
+  @Override
+  public List<BulkItemResult> deleteMany(List<String> isbns) {
+    // The removal only reports how many books were removed, so the existing ones are looked up
+    Set<String> existing = existingIsbns(isbns);
+    if (!existing.isEmpty()) {
+      mongoTemplate.remove(new Query(Criteria.where("isbn").in(existing)), Book.class);
+    }
+
+    List<BulkItemResult> results = new ArrayList<>(isbns.size());
+    isbns.forEach(i -> results.add(
+        new BulkItemResult(i, existing.contains(i) ? Status.DELETED : Status.NOT_FOUND, null)));
+    return results;
+  }
+
+  @Override
+  public long deleteMatching(BookFilter filter) {
+    return mongoTemplate.remove(queryBuilder.build(filter), Book.class).getN();
+  }
+
+  @Override
+  public BookRevision patch(String isbn, Map<BookField, Object> changes,
+      Long expectedVersion) {
+    // The timestamp is set here, so the updated book can be rebuilt exactly from the previous one
+    Date now = new Date();
+    Book previous = mongoTemplate.findAndModify(byIsbn(isbn, expectedVersion),
+        toUpdate(changes, now), FindAndModifyOptions.options().returnNew(false), Book.class);
+    if (previous == null) {
+      return null;
+    }
+
+    Book updated = Book.copyOf(previous);
+    changes.forEach((field, value) -> field.applyTo(updated, value));
+    updated.setLastModifiedAt(now);
+    updated.setVersion(previous.getVersion() + 1);
+    return new BookRevision(previous, updated);
+  }
+
+  /**
+   * Build the partial update writing only the specified fields; the last modification timestamp is
+   * set and the version is incremented.
+   *
+   * @param changes        new value of every field to be updated, a null value removes the field
+   * @param lastModifiedAt last modification timestamp
+   *
+   * @return the partial update
+   */
+  private static Update toUpdate(Map<BookField, Object> changes, Date lastModifiedAt) {
+    Update update = new Update();
+    changes.forEach((field, value) -> {
+      if (value == null) {
+        update.unset(field.getProperty());
+      } else {
+        update.set(field.getProperty(), value);
+      }
+    });
+    if (changes.containsKey(BookField.AUTHOR)) {
+      // The legacy field would be read as a fallback, and brought back by the authors migration
+      update.unset(LEGACY_AUTHOR);
+    }
+    if (changes.containsKey(BookField.TITLE)) {
+      // Trigrams are kept in sync with the title, see Book.setTitle
+      Object title = changes.get(BookField.TITLE);
+      if (title == null) {
+        update.unset("titleTrigrams");
+      } else {
+        update.set("titleTrigrams", Trigrams.of((String) title));
+      }
+    }
+    return update.set("lastModifiedAt", lastModifiedAt).inc("version", 1);
+  }
+
+  /**
+   * Look up which of the specified books exist, loading only their identifiers.
+   *
+   * @param isbns book unique identifiers
+   *
+   * @return the identifiers of the existing books
+   */
+  private Set<String> existingIsbns(Collection<String> isbns) {
+    if (isbns.isEmpty()) {
+      return new HashSet<>();
+    }
+    Query query = new Query(Criteria.where("isbn").in(isbns));
+    query.fields().include("isbn");
+    return mongoTemplate.find(query, Book.class).stream()
+        .map(Book::getIsbn)
+        .collect(Collectors.toSet());
+  }
+
+  @Override
+  public Book delete(String isbn, Long expectedVersion) {
+    return mongoTemplate.findAndRemove(byIsbn(isbn, expectedVersion), Book.class);
+  }
+
+  /**
+   * Build the query matching with the book identified by the specified ISBN, only if it has the
+   * expected version.
+   *
+   * @param isbn            book unique identifier
+   * @param expectedVersion version the book must have, null to match with any version
+   *
+   * @return the query matching with the selected book
+   */
+  private static Query byIsbn(String isbn, Long expectedVersion) {
+    Criteria criteria = Criteria.where("isbn").is(isbn);
+    if (expectedVersion != null) {
+      if (expectedVersion == 0) {
+        // Books stored before the version was introduced have no version field
+        criteria.and("version").in(0L, null);
+      } else {
+        criteria.and("version").is(expectedVersion);
+      }
+    }
+    return new Query(criteria);
+  }
+
+  /**
+   * Limit the execution time of the query on the server; a query exceeding the limit fails instead
+   * of holding its connection.
+   *
+   * @param query   query to be limited
+   * @param maxTime maximum execution time in milliseconds, 0 for no limit
+   */
+  private static void limitTime(Query query, long maxTime) {
+    if (maxTime > 0) {
+      query.maxTimeMsec(maxTime);
+    }
+  }
+
+  /**
+   * Restrict the query result to the specified fields; the identifier is always returned by the
+   * database and the version is always loaded, so ISBN and version are available to build the
+   * entity tag even if not requested.
+   *
+   * @param query  query to be restricted
+   * @param fields fields to be loaded, null to load the whole documents
+   */
+  private static void project(Query query, Set<BookField> fields) {
+    if (fields != null) {
+      fields.forEach(f -> query.fields().include(f.getProperty()));
+      query.fields().include(BookField.VERSION.getProperty());
+      if (fields.contains(BookField.AUTHOR)) {
+        // Fallback of the documents not reached by the authors migration yet
+        query.fields().include(LEGACY_AUTHOR);
+      }
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package it.terrinoni.terrybooks.repository;
+
+/*
+ * Created by agent, on 18/10/2026 - 05:29.
+ */
+
+import it.terrinoni.terrybooks.model.Book;
+
+/**
+ * Outcome of a partial update of a single book: the book as it was before the update and as it is
+ * after it, both read by the same atomic write.
+ */
+public class BookRevision {
+
+  private final Book previous;
+  private final Book updated;
+
+  public BookRevision(Book previous, Book updated) {
+    this.previous = previous;
+    this.updated = updated;
+  }
+
+  public Book getPrevious() {
+    return previous;
+  }
+
+  public Book getUpdated() {
+    return updated;
+  }
+}
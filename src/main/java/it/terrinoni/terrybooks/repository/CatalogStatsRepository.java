@@ -0,0 +1,41 @@
+package it.terrinoni.terrybooks.repository;
+
+/*
+ * Created by agent, on 18/10/2026 - 05:11.
+ */
+
+import java.util.Map;
+
+/**
+ * Repository of the catalog statistics counters; every counter is identified by a key and holds
+ * the number of books counted in it, see {@link it.terrinoni.terrybooks.model.CatalogStats}.
+ */
+public interface CatalogStatsRepository {
+
+  /**
+   * Update method to add the specified deltas to the counters; missing counters are created.
+   *
+   * @param deltas value to be added to every counter, by key
+   */
+  void increment(Map<String, Long> deltas);
+
+  /**
+   * Query method to retrieve every counter, including the ones whose value is zero or negative.
+   *
+   * @return the value of every counter, by key
+   */
+  Map<String, Long> findAll();
+
+  /**
+   * Query method to compute every counter from the books collection, scanning the whole collection.
+   *
+   * @return the actual value of every counter, by key
+   */
+  Map<String, Long> aggregate();
+
+  /**
+   * Delete method to remove the counters whose value is zero; a counter incremented concurrently
+   * is either kept or created again by the increment.
+   */
+  void removeEmpty();
+}
@@ -0,0 +1,99 @@
+package it.terrinoni.terrybooks.repository;
+
+/*
+ * Created by agent, on 18/10/2026 - 05:11.
+ */
+
+import com.mongodb.DBObject;
+import com.mongodb.ReadPreference;
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.CatalogStats;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Catalog statistics repository backed by a dedicated collection, holding a document per counter;
+ * counters are updated with upserts, so concurrent increments never overwrite each other.
+ */
+@Repository
+@Profile("!embedded")
+public class MongoCatalogStatsRepository implements CatalogStatsRepository {
+
+  private static final String COLLECTION = "book_stats";
+  private static final String COUNT = "count";
+
+  private final MongoTemplate mongoTemplate;
+  private final MongoTemplate primaryMongoTemplate;
+
+  @Autowired
+  public MongoCatalogStatsRepository(MongoTemplate mongoTemplate, MongoDbFactory mongoDbFactory,
+      MongoConverter converter) {
+    this.mongoTemplate = mongoTemplate;
+    // Counters and aggregation are compared, so both are read from the primary whatever the read
+    // preferences configured for lookups and scans
+    this.primaryMongoTemplate = new MongoTemplate(mongoDbFactory, converter);
+    this.primaryMongoTemplate.setReadPreference(ReadPreference.primary());
+  }
+
+  @Override
+  public void increment(Map<String, Long> deltas) {
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, COLLECTION);
+    deltas.forEach((key, delta) -> bulk.upsert(byKey(key), new Update().inc(COUNT, delta)));
+    bulk.execute();
+  }
+
+  @Override
+  public Map<String, Long> findAll() {
+    Map<String, Long> counters = new HashMap<>();
+    primaryMongoTemplate.findAll(DBObject.class, COLLECTION).forEach(c -> counters
+        .put((String) c.get("_id"), ((Number) c.get(COUNT)).longValue()));
+    return counters;
+  }
+
+  @Override
+  public Map<String, Long> aggregate() {
+    // Full collection scans, on the primary as the counters they are compared with
+    AggregationOptions options = Aggregation.newAggregationOptions().allowDiskUse(true).build();
+    TypedAggregation<Book> byAuthor = Aggregation.newAggregation(Book.class,
+        Aggregation.unwind("authors"),
+        Aggregation.group("authors").count().as(COUNT))
+        .withOptions(options);
+    TypedAggregation<Book> byYear = Aggregation.newAggregation(Book.class,
+        Aggregation.match(Criteria.where("publishDate").ne(null)),
+        Aggregation.project().and("publishDate").extractYear().as("year"),
+        Aggregation.group("year").count().as(COUNT))
+        .withOptions(options);
+
+    Map<String, Long> counters = new HashMap<>();
+    counters.put(CatalogStats.TOTAL_KEY, primaryMongoTemplate.count(new Query(), Book.class));
+    primaryMongoTemplate.aggregate(byAuthor, DBObject.class).forEach(c -> counters
+        .put(CatalogStats.AUTHOR_KEY_PREFIX + c.get("_id"), ((Number) c.get(COUNT)).longValue()));
+    primaryMongoTemplate.aggregate(byYear, DBObject.class).forEach(c -> counters
+        .put(CatalogStats.YEAR_KEY_PREFIX + c.get("_id"), ((Number) c.get(COUNT)).longValue()));
+    return counters;
+  }
+
+  @Override
+  public void removeEmpty() {
+    // The value is checked by the same atomic delete, so a concurrent increment is never lost
+    mongoTemplate.remove(new Query(Criteria.where(COUNT).is(0)), COLLECTION);
+  }
+
+  private static Query byKey(String key) {
+    return new Query(Criteria.where("_id").is(key));
+  }
+}
@@ -0,0 +1,208 @@
+package it.terrinoni.terrybooks.repository.embedded;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:57.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only record log stored in memory-mapped segment files of fixed size. Every record is
+ * framed by its length and by the checksum of its content, so a record torn by a crash is detected
+ * and discarded when the log is opened; the log is recovered up to the last complete record.
+ *
+ * <p>Records are addressed by segment and position, packed in a single long. Appends must be
+ * serialized by the caller, while reads are lock-free, since the records are immutable once
+ * written.
+ */
+class BookLog implements AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(BookLog.class);
+
+  /**
+   * Record header: payload length, checksum and record type.
+   */
+  private static final int HEADER_SIZE = 9;
+  private static final String SEGMENT_NAME = "books-%05d.seg";
+
+  private final Path directory;
+  private final int segmentSize;
+  private final boolean sync;
+  private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+
+  private MappedByteBuffer tail;
+  private int tailPosition;
+
+  /**
+   * Record visitor, used to replay the log when it is opened.
+   */
+  interface RecordVisitor {
+
+    void visit(long address, byte type, byte[] payload);
+  }
+
+  /**
+   * Constructor of the record log.
+   *
+   * @param directory   directory of the segment files
+   * @param segmentSize size of a segment file, the maximum size of a record
+   * @param sync        true to flush every record to the storage device once appended
+   */
+  BookLog(Path directory, int segmentSize, boolean sync) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.sync = sync;
+  }
+
+  /**
+   * Map the existing segment files and replay their records, in the same order they have been
+   * appended; the log is truncated after the last complete record.
+   *
+   * @param visitor visitor of every complete record
+   *
+   * @throws IOException if a segment file cannot be mapped
+   */
+  void open(RecordVisitor visitor) throws IOException {
+    Files.createDirectories(directory);
+
+    for (int index = 0; Files.exists(segmentPath(index)); index++) {
+      segments.add(map(index));
+    }
+    if (segments.isEmpty()) {
+      segments.add(map(0));
+    }
+
+    for (int index = 0; index < segments.size(); index++) {
+      ByteBuffer segment = segments.get(index).duplicate();
+      int position = 0;
+      while (position + HEADER_SIZE <= segmentSize) {
+        int length = segment.getInt(position);
+        if (length <= 0 || position + HEADER_SIZE + length > segmentSize) {
+          break;
+        }
+        int checksum = segment.getInt(position + 4);
+        byte type = segment.get(position + 8);
+        byte[] payload = new byte[length];
+        segment.position(position + HEADER_SIZE);
+        segment.get(payload);
+        if (checksum != checksum(type, payload)) {
+          log.warn("Torn record discarded in segment {} at position {}", index, position);
+          break;
+        }
+
+        visitor.visit(address(index, position), type, payload);
+        position += HEADER_SIZE + length;
+      }
+
+      if (index == segments.size() - 1) {
+        tail = segments.get(index);
+        tailPosition = position;
+        // Clear the torn record, if any, so it cannot be mistaken for a complete one later
+        for (int i = position; i < Math.min(position + HEADER_SIZE, segmentSize); i++) {
+          tail.put(i, (byte) 0);
+        }
+      }
+    }
+  }
+
+  /**
+   * Append a record at the end of the log; a new segment is started if the record does not fit into
+   * the current one. Calls must be serialized by the caller.
+   *
+   * @param type    record type
+   * @param payload record content
+   *
+   * @return the address of the record
+   *
+   * @throws IOException if a new segment file cannot be mapped
+   */
+  long append(byte type, byte[] payload) throws IOException {
+    if (HEADER_SIZE + payload.length > segmentSize) {
+      throw new IOException(String.format("Record of %d bytes exceeds the segment size of %d bytes",
+          payload.length, segmentSize));
+    }
+    if (tailPosition + HEADER_SIZE + payload.length > segmentSize) {
+      tail = map(segments.size());
+      segments.add(tail);
+      tailPosition = 0;
+    }
+
+    // The length is written last, so the record is visible only once complete
+    ByteBuffer buffer = tail.duplicate();
+    buffer.position(tailPosition + 4);
+    buffer.putInt(checksum(type, payload));
+    buffer.put(type);
+    buffer.put(payload);
+    buffer.putInt(tailPosition, payload.length);
+    if (sync) {
+      tail.force();
+    }
+
+    long address = address(segments.size() - 1, tailPosition);
+    tailPosition += HEADER_SIZE + payload.length;
+    return address;
+  }
+
+  /**
+   * Read the content of the record stored at the specified address.
+   *
+   * @param address address of the record
+   *
+   * @return the record content
+   */
+  byte[] read(long address) {
+    ByteBuffer segment = segments.get((int) (address >>> 32)).duplicate();
+    int position = (int) address;
+    byte[] payload = new byte[segment.getInt(position)];
+    segment.position(position + HEADER_SIZE);
+    segment.get(payload);
+    return payload;
+  }
+
+  /**
+   * Flush every segment to the storage device.
+   */
+  void force() {
+    segments.forEach(MappedByteBuffer::force);
+  }
+
+  @Override
+  public void close() {
+    force();
+  }
+
+  private MappedByteBuffer map(int index) throws IOException {
+    try (FileChannel channel = FileChannel.open(segmentPath(index), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      // The mapping stays valid after the channel is closed; new files are extended with zeros
+      return channel.map(MapMode.READ_WRITE, 0, segmentSize);
+    }
+  }
+
+  private Path segmentPath(int index) {
+    return directory.resolve(String.format(SEGMENT_NAME, index));
+  }
+
+  private static long address(int segment, int position) {
+    return ((long) segment << 32) | position;
+  }
+
+  private static int checksum(byte type, byte[] payload) {
+    CRC32 crc = new CRC32();
+    crc.update(type);
+    crc.update(payload, 0, payload.length);
+    return (int) crc.getValue();
+  }
+}
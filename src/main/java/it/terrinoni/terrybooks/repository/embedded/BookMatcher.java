@@ -0,0 +1,69 @@
+package it.terrinoni.terrybooks.repository.embedded;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:57.
+ */
+
+import it.terrinoni.terrybooks.model.Authors;
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BookFilter;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.springframework.data.mongodb.core.query.MongoRegexCreator;
+import org.springframework.data.repository.query.parser.Part.Type;
+
+/**
+ * In-memory evaluation of a book filter, with the same semantics of the MongoDB queries built from
+ * it: every specified author, ISBN prefix, exclusive date ranges and the same regular expressions
+ * for the "like" parameters.
+ */
+class BookMatcher {
+
+  private final BookFilter filter;
+  private final List<String> authors;
+  private final Pattern titlePattern;
+  private final Pattern summaryPattern;
+
+  BookMatcher(BookFilter filter) {
+    this.filter = filter;
+    this.authors = Authors.split(filter.getAuthor());
+    this.titlePattern = containsPattern(filter.getTitleLike());
+    this.summaryPattern = containsPattern(filter.getSummaryLike());
+  }
+
+  /**
+   * Check whether the book matches with every parameter of the filter.
+   *
+   * @param book book to be checked
+   *
+   * @return true if the book matches with the filter
+   */
+  boolean matches(Book book) {
+    return (filter.getIsbnPrefix() == null || book.getIsbn().startsWith(filter.getIsbnPrefix()))
+        && (authors == null
+        || (book.getAuthors() != null && book.getAuthors().containsAll(authors)))
+        && inRange(book.getPublishDate(), filter.getPublishDateBefore(),
+        filter.getPublishDateAfter())
+        && inRange(book.getCreatedAt(), filter.getCreatedAtBefore(), filter.getCreatedAtAfter())
+        && contains(titlePattern, book.getTitle())
+        && contains(summaryPattern, book.getSummary());
+  }
+
+  private static boolean inRange(Date value, Date before, Date after) {
+    if (before == null && after == null) {
+      return true;
+    }
+    return value != null && (before == null || value.before(before))
+        && (after == null || value.after(after));
+  }
+
+  private static boolean contains(Pattern pattern, String value) {
+    return pattern == null || (value != null && pattern.matcher(value).find());
+  }
+
+  private static Pattern containsPattern(String value) {
+    return value == null ? null
+        : Pattern.compile(MongoRegexCreator.INSTANCE.toRegularExpression(value, Type.CONTAINING));
+  }
+}
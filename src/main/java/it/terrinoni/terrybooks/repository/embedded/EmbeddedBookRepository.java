@@ -0,0 +1,545 @@
+package it.terrinoni.terrybooks.repository.embedded;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:57.
+ */
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.DBRef;
+import com.mongodb.DefaultDBDecoder;
+import com.mongodb.WriteConcern;
+import it.terrinoni.terrybooks.model.Authors;
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BookField;
+import it.terrinoni.terrybooks.model.BookFilter;
+import it.terrinoni.terrybooks.model.BulkItemResult;
+import it.terrinoni.terrybooks.model.BulkItemResult.Status;
+import it.terrinoni.terrybooks.repository.BookRepository;
+import it.terrinoni.terrybooks.repository.BookRevision;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.bson.BasicBSONEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.convert.DbRefProxyHandler;
+import org.springframework.data.mongodb.core.convert.DbRefResolver;
+import org.springframework.data.mongodb.core.convert.DbRefResolverCallback;
+import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Book repository backed by an embedded storage engine, used in place of the MongoDB instance when
+ * the "embedded" profile is active. Books are stored as BSON documents, with the same layout of the
+ * MongoDB collection, in an append-only log of memory-mapped files; the ISBN primary index and the
+ * author and publish date secondary indexes are kept in memory and rebuilt from the log at startup.
+ *
+ * <p>Writes are serialized, while reads are lock-free. A removed book is recorded as a tombstone,
+ * and the space of the overwritten records is never reclaimed. Projections are not applied, since
+ * the whole document is read anyway.
+ */
+@Repository
+@Profile("embedded")
+public class EmbeddedBookRepository implements BookRepository {
+
+  private static final Logger log = LoggerFactory.getLogger(EmbeddedBookRepository.class);
+
+  private static final byte PUT = 1;
+  private static final byte DELETE = 2;
+
+  @Value("${custom.embedded.directory}")
+  private String directory;
+
+  @Value("${custom.embedded.segmentsize}")
+  private int segmentSize;
+
+  @Value("${custom.embedded.sync}")
+  private boolean sync;
+
+  @Value("${custom.embedded.snapshot:}")
+  private String snapshot;
+
+  private final MappingMongoConverter converter;
+
+  private final ConcurrentNavigableMap<String, Entry> primaryIndex = new ConcurrentSkipListMap<>();
+  private final ConcurrentMap<String, NavigableSet<String>> authorIndex = new ConcurrentHashMap<>();
+  private final ConcurrentNavigableMap<Date, NavigableSet<String>> publishDateIndex =
+      new ConcurrentSkipListMap<>();
+
+  private BookLog bookLog;
+
+  /**
+   * Index entry of a stored book: the address of its latest record and its indexed fields.
+   */
+  private static final class Entry {
+
+    private final long address;
+    private final List<String> authors;
+    private final Date publishDate;
+
+    private Entry(long address, List<String> authors, Date publishDate) {
+      this.address = address;
+      this.authors = authors;
+      this.publishDate = publishDate;
+    }
+  }
+
+  public EmbeddedBookRepository() {
+    // Same document layout of the Mongo template, without the type hints
+    converter = new MappingMongoConverter(new NoDbRefResolver(), new MongoMappingContext());
+    converter.setTypeMapper(new DefaultMongoTypeMapper(null));
+    converter.afterPropertiesSet();
+  }
+
+  /**
+   * Open the record log and rebuild the indexes from it; an empty storage is loaded from the
+   * configured snapshot, if any.
+   *
+   * @throws IOException if the record log or the snapshot cannot be read
+   */
+  @PostConstruct
+  public void open() throws IOException {
+    bookLog = new BookLog(Paths.get(directory), segmentSize, sync);
+    bookLog.open((address, type, payload) -> {
+      if (type == PUT) {
+        DBObject document = decode(payload);
+        @SuppressWarnings("unchecked")
+        List<String> authors = (List<String>) document.get("authors");
+        index((String) document.get("_id"),
+            new Entry(address, authors, (Date) document.get("publish_date")));
+      } else if (type == DELETE) {
+        unindex(new String(payload, StandardCharsets.UTF_8));
+      }
+    });
+    log.info("Embedded storage opened in {}, {} books found", directory, primaryIndex.size());
+
+    if (primaryIndex.isEmpty() && !snapshot.isEmpty()) {
+      load(Paths.get(snapshot));
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    bookLog.close();
+  }
+
+  /**
+   * Load the books exported from the MongoDB collection, one extended JSON document per line, as
+   * produced by mongoexport.
+   *
+   * @param path snapshot file
+   *
+   * @throws IOException if the snapshot cannot be read
+   */
+  private synchronized void load(Path path) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.trim().isEmpty()) {
+          put(converter.read(Book.class, BasicDBObject.parse(line)));
+        }
+      }
+    }
+    bookLog.force();
+    log.info("Embedded storage loaded from snapshot {}, {} books stored", path,
+        primaryIndex.size());
+  }
+
+  @Override
+  public Book findOne(String isbn, Set<BookField> fields) {
+    return findOne(isbn);
+  }
+
+  @Override
+  public List<Book> findMany(Collection<String> isbns, Set<BookField> fields) {
+    return isbns.stream()
+        .distinct()
+        .map(this::findOne)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public List<Book> findAll(BookFilter filter, Set<BookField> fields) {
+    return streamAll(filter, fields).collect(Collectors.toList());
+  }
+
+  @Override
+  public long count(BookFilter filter, int limit) {
+    if (filter.isEmpty()) {
+      return primaryIndex.size();
+    }
+    Stream<Book> books = streamAll(filter, null);
+    return (limit > 0 ? books.limit(limit) : books).count();
+  }
+
+  @Override
+  public Stream<Book> streamAll(BookFilter filter, Set<BookField> fields) {
+    return matching(candidates(filter).stream(), filter);
+  }
+
+  @Override
+  public List<Book> findPage(BookFilter filter, Book after, int limit, Set<BookField> fields) {
+    if (filter.hasPublishDateRange()) {
+      // The publish date index walked in order yields the books by publish date and ISBN
+      ConcurrentNavigableMap<Date, NavigableSet<String>> range = publishDateRange(filter);
+      if (after != null) {
+        range = range.tailMap(after.getPublishDate(), true);
+      }
+      Stream<String> isbns = range.entrySet().stream().flatMap(e -> after != null
+          && e.getKey().equals(after.getPublishDate())
+          ? e.getValue().tailSet(after.getIsbn(), false).stream() : e.getValue().stream());
+      return matching(isbns, filter).limit(limit).collect(Collectors.toList());
+    }
+
+    NavigableSet<String> candidates = candidates(filter);
+    if (after != null) {
+      candidates = candidates.tailSet(after.getIsbn(), false);
+    }
+    return matching(candidates.stream(), filter).limit(limit).collect(Collectors.toList());
+  }
+
+  @Override
+  public synchronized List<BulkItemResult> insertAll(List<Book> books) {
+    List<BulkItemResult> results = new ArrayList<>(books.size());
+    for (Book book : books) {
+      if (primaryIndex.containsKey(book.getIsbn())) {
+        results.add(new BulkItemResult(book.getIsbn(), Status.DUPLICATE,
+            String.format("Duplicate key: %s", book.getIsbn())));
+      } else {
+        put(book);
+        results.add(new BulkItemResult(book.getIsbn(), Status.INSERTED, null));
+      }
+    }
+    return results;
+  }
+
+  @Override
+  public List<BulkItemResult> insertAll(List<Book> books, WriteConcern writeConcern) {
+    // Durability is set by the storage configuration, every record is flushed if configured so
+    return insertAll(books);
+  }
+
+  @Override
+  public synchronized List<BulkItemResult> updateMany(Map<String, Map<BookField, Object>> changes) {
+    List<BulkItemResult> results = new ArrayList<>(changes.size());
+    changes.forEach((isbn, c) -> {
+      try {
+        BookRevision revision = patch(isbn, c, null);
+        results.add(new BulkItemResult(isbn,
+            revision == null ? Status.NOT_FOUND : Status.UPDATED, null));
+      } catch (IllegalArgumentException iaEx) {
+        results.add(new BulkItemResult(isbn, Status.FAILED, iaEx.getMessage()));
+      }
+    });
+    return results;
+  }
+
+  @Override
+  public synchronized List<BulkItemResult> deleteMany(List<String> isbns) {
+    List<BulkItemResult> results = new ArrayList<>(isbns.size());
+    isbns.forEach(i -> results.add(
+        new BulkItemResult(i, remove(i) ? Status.DELETED : Status.NOT_FOUND, null)));
+    return results;
+  }
+
+  @Override
+  public synchronized long deleteMatching(BookFilter filter) {
+    List<String> isbns = streamAll(filter, null).map(Book::getIsbn).collect(Collectors.toList());
+    isbns.forEach(this::remove);
+    return isbns.size();
+  }
+
+  @Override
+  public synchronized BookRevision patch(String isbn, Map<BookField, Object> changes,
+      Long expectedVersion) {
+    Book previous = findOne(isbn);
+    if (previous == null
+        || (expectedVersion != null && previous.getVersion() != expectedVersion)) {
+      return null;
+    }
+
+    Book book = Book.copyOf(previous);
+    changes.forEach((field, value) -> field.applyTo(book, value));
+    book.setLastModifiedAt(new Date());
+    book.setVersion(previous.getVersion() + 1);
+    put(book);
+    return new BookRevision(previous, book);
+  }
+
+  @Override
+  public synchronized Book delete(String isbn, Long expectedVersion) {
+    Book book = findOne(isbn);
+    if (book == null || expectedVersion != null && book.getVersion() != expectedVersion) {
+      return null;
+    }
+    remove(isbn);
+    return book;
+  }
+
+  @Override
+  public synchronized <S extends Book> S save(S entity) {
+    put(entity);
+    return entity;
+  }
+
+  @Override
+  public synchronized <S extends Book> S insert(S entity) {
+    if (primaryIndex.containsKey(entity.getIsbn())) {
+      throw new DuplicateKeyException(String.format("Duplicate key: %s", entity.getIsbn()));
+    }
+    put(entity);
+    return entity;
+  }
+
+  @Override
+  public Book findOne(String isbn) {
+    Entry entry = primaryIndex.get(isbn);
+    return entry == null ? null : converter.read(Book.class, decode(bookLog.read(entry.address)));
+  }
+
+  @Override
+  public boolean exists(String isbn) {
+    return primaryIndex.containsKey(isbn);
+  }
+
+  @Override
+  public long count() {
+    return primaryIndex.size();
+  }
+
+  @Override
+  public synchronized void delete(String isbn) {
+    remove(isbn);
+  }
+
+  /**
+   * Select the books that may match with the specified filter through the most selective index
+   * available: author, ISBN prefix and publish date, in this order; without any of them every book
+   * is a candidate.
+   *
+   * @param filter book filter
+   *
+   * @return the ISBNs of the candidate books, ordered by ISBN
+   */
+  private NavigableSet<String> candidates(BookFilter filter) {
+    List<String> authors = Authors.split(filter.getAuthor());
+    if (authors != null) {
+      // The books of the least prolific author, the other authors are checked by the matcher
+      NavigableSet<String> candidates = null;
+      for (String author : authors) {
+        NavigableSet<String> isbns = authorIndex.get(author);
+        if (isbns == null) {
+          return new TreeSet<>();
+        }
+        if (candidates == null || isbns.size() < candidates.size()) {
+          candidates = isbns;
+        }
+      }
+      return candidates;
+    }
+    if (filter.getIsbnPrefix() != null) {
+      String prefix = filter.getIsbnPrefix();
+      return primaryIndex.subMap(prefix, prefix + Character.MAX_VALUE).navigableKeySet();
+    }
+    if (filter.hasPublishDateRange()) {
+      NavigableSet<String> isbns = new TreeSet<>();
+      publishDateRange(filter).values().forEach(isbns::addAll);
+      return isbns;
+    }
+    return primaryIndex.navigableKeySet();
+  }
+
+  /**
+   * Select the entries of the publish date index within the publish date range of the filter.
+   *
+   * @param filter book filter
+   *
+   * @return the entries of the publish date index within the range, ordered by publish date
+   */
+  private ConcurrentNavigableMap<Date, NavigableSet<String>> publishDateRange(BookFilter filter) {
+    ConcurrentNavigableMap<Date, NavigableSet<String>> range = publishDateIndex;
+    if (filter.getPublishDateAfter() != null) {
+      range = range.tailMap(filter.getPublishDateAfter(), false);
+    }
+    if (filter.getPublishDateBefore() != null) {
+      range = range.headMap(filter.getPublishDateBefore(), false);
+    }
+    return range;
+  }
+
+  /**
+   * Load the candidate books and keep only the ones that match with the filter; books removed in
+   * the meantime are skipped.
+   *
+   * @param isbns  ISBNs of the candidate books
+   * @param filter book filter
+   *
+   * @return the stream of matching books
+   */
+  private Stream<Book> matching(Stream<String> isbns, BookFilter filter) {
+    BookMatcher matcher = new BookMatcher(filter);
+    return isbns.map(this::findOne)
+        .filter(Objects::nonNull)
+        .filter(matcher::matches);
+  }
+
+  /**
+   * Append the book to the record log and index it; any previous record of the same book is
+   * superseded. Must be called holding the repository lock.
+   *
+   * @param book book to be stored
+   */
+  private void put(Book book) {
+    DBObject document = new BasicDBObject();
+    converter.write(book, document);
+    long address = append(PUT, new BasicBSONEncoder().encode(document));
+    index(book.getIsbn(), new Entry(address, book.getAuthors(), book.getPublishDate()));
+  }
+
+  /**
+   * Append a tombstone of the book to the record log and remove it from the indexes. Must be called
+   * holding the repository lock.
+   *
+   * @param isbn book unique identifier
+   *
+   * @return true if the book existed and has been removed
+   */
+  private boolean remove(String isbn) {
+    if (!primaryIndex.containsKey(isbn)) {
+      return false;
+    }
+    append(DELETE, isbn.getBytes(StandardCharsets.UTF_8));
+    unindex(isbn);
+    return true;
+  }
+
+  private long append(byte type, byte[] payload) {
+    try {
+      return bookLog.append(type, payload);
+    } catch (IOException ioEx) {
+      String msg = String.format("Unable to append to the embedded storage, exception: %s",
+          ioEx.getMessage());
+      log.error(msg);
+      throw new DataAccessResourceFailureException(msg, ioEx);
+    }
+  }
+
+  private void index(String isbn, Entry entry) {
+    Entry previous = primaryIndex.put(isbn, entry);
+    if (previous != null) {
+      unindexSecondary(isbn, previous);
+    }
+    if (entry.authors != null) {
+      entry.authors.forEach(author -> authorIndex
+          .computeIfAbsent(author, a -> new ConcurrentSkipListSet<>()).add(isbn));
+    }
+    if (entry.publishDate != null) {
+      publishDateIndex.computeIfAbsent(entry.publishDate, d -> new ConcurrentSkipListSet<>())
+          .add(isbn);
+    }
+  }
+
+  private void unindex(String isbn) {
+    Entry previous = primaryIndex.remove(isbn);
+    if (previous != null) {
+      unindexSecondary(isbn, previous);
+    }
+  }
+
+  private void unindexSecondary(String isbn, Entry entry) {
+    if (entry.authors != null) {
+      entry.authors.forEach(author -> authorIndex.computeIfPresent(author, (a, isbns) -> {
+        isbns.remove(isbn);
+        return isbns.isEmpty() ? null : isbns;
+      }));
+    }
+    if (entry.publishDate != null) {
+      publishDateIndex.computeIfPresent(entry.publishDate, (d, isbns) -> {
+        isbns.remove(isbn);
+        return isbns.isEmpty() ? null : isbns;
+      });
+    }
+  }
+
+  /**
+   * Decode a stored book; books stored with the comma-separated author string are migrated to the
+   * author list on the fly.
+   *
+   * @param payload content of the book record
+   *
+   * @return the book document
+   */
+  private static DBObject decode(byte[] payload) {
+    DBObject document = new DefaultDBDecoder().decode(payload, (DBCollection) null);
+    Object author = document.removeField("author");
+    if (author instanceof String && !document.containsField("authors")) {
+      List<String> authors = Authors.split((String) author);
+      if (authors != null) {
+        document.put("authors", authors);
+      }
+    }
+    return document;
+  }
+
+  /**
+   * Reference resolver of the converter; books do not contain any reference to other documents, and
+   * any reference would resolve to nothing, as a dangling reference, since only books are stored.
+   */
+  private static final class NoDbRefResolver implements DbRefResolver {
+
+    @Override
+    public Object resolveDbRef(MongoPersistentProperty property, DBRef dbref,
+        DbRefResolverCallback callback, DbRefProxyHandler proxyHandler) {
+      return null;
+    }
+
+    @Override
+    public DBRef createDbRef(org.springframework.data.mongodb.core.mapping.DBRef annotation,
+        MongoPersistentEntity<?> entity, Object id) {
+      return new DBRef(entity.getCollection(), id);
+    }
+
+    @Override
+    public DBObject fetch(DBRef dbRef) {
+      return null;
+    }
+
+    @Override
+    public List<DBObject> bulkFetch(List<DBRef> dbRefs) {
+      return Collections.nCopies(dbRefs.size(), null);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package it.terrinoni.terrybooks.repository.embedded;
+
+/*
+ * Created by agent, on 18/10/2026 - 05:11.
+ */
+
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BookFilter;
+import it.terrinoni.terrybooks.model.CatalogStats;
+import it.terrinoni.terrybooks.repository.BookRepository;
+import it.terrinoni.terrybooks.repository.CatalogStatsRepository;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Catalog statistics repository used along with the embedded storage; counters are kept in memory
+ * only, so they are rebuilt from the books by the first reconciliation after the startup.
+ */
+@Repository
+@Profile("embedded")
+public class EmbeddedCatalogStatsRepository implements CatalogStatsRepository {
+
+  private final Map<String, Long> counters = new ConcurrentHashMap<>();
+
+  @Autowired
+  BookRepository bookRepository;
+
+  @Override
+  public void increment(Map<String, Long> deltas) {
+    deltas.forEach((key, delta) -> counters.merge(key, delta, Long::sum));
+  }
+
+  @Override
+  public Map<String, Long> findAll() {
+    return new HashMap<>(counters);
+  }
+
+  @Override
+  public Map<String, Long> aggregate() {
+    Map<String, Long> res = new HashMap<>();
+    res.put(CatalogStats.TOTAL_KEY, 0L);
+    try (Stream<Book> books = bookRepository.streamAll(new BookFilter(), null)) {
+      books.forEach(b -> CatalogStats.keysOf(b).forEach(key -> res.merge(key, 1L, Long::sum)));
+    }
+    return res;
+  }
+
+  @Override
+  public void removeEmpty() {
+    counters.entrySet().removeIf(e -> e.getValue() == 0);
+  }
+}
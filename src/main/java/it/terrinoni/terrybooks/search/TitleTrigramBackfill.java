@@ -0,0 +1,88 @@
+package it.terrinoni.terrybooks.search;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:09.
+ */
+
+import it.terrinoni.terrybooks.model.Book;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Startup component that builds the title trigrams of the books stored before the title search
+ * index was introduced; books written through the service keep their trigrams in sync with the
+ * title. The backfill runs in background and walks the collection with a cursor, so it neither
+ * delays the startup nor loads the collection in memory.
+ */
+@Component
+@Profile("!embedded")
+public class TitleTrigramBackfill implements ApplicationListener<ApplicationReadyEvent> {
+
+  private static final Logger log = LoggerFactory.getLogger(TitleTrigramBackfill.class);
+
+  @Autowired
+  MongoTemplate mongoTemplate;
+
+  @Value("${custom.bulk.batchsize:1000}")
+  private int batchSize;
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    Thread worker = new Thread(this::backfill, "title-trigram-backfill");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Compute and store the trigrams of every book whose title has not been indexed yet.
+   */
+  void backfill() {
+    Query query = new Query(Criteria.where("titleTrigrams").exists(false)
+        .and("title").exists(true));
+    query.fields().include("title");
+
+    long updated = 0;
+    try (CloseableIterator<Book> books = mongoTemplate.stream(query, Book.class)) {
+      BulkOperations bulk = null;
+      int pending = 0;
+      while (books.hasNext()) {
+        Book book = books.next();
+        if (bulk == null) {
+          bulk = mongoTemplate.bulkOps(BulkMode.UNORDERED, Book.class);
+        }
+        bulk.updateOne(new Query(Criteria.where("isbn").is(book.getIsbn())),
+            Update.update("titleTrigrams", Trigrams.of(book.getTitle())));
+
+        if (++pending == batchSize) {
+          bulk.execute();
+          updated += pending;
+          bulk = null;
+          pending = 0;
+        }
+      }
+      if (bulk != null) {
+        bulk.execute();
+        updated += pending;
+      }
+    } catch (RuntimeException rEx) {
+      log.error("Title trigram backfill interrupted after {} books, exception: {}", updated,
+          rEx.getMessage());
+      return;
+    }
+
+    log.info("Title trigram backfill completed, {} books indexed", updated);
+  }
+}
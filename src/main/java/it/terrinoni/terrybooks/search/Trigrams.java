@@ -0,0 +1,49 @@
+package it.terrinoni.terrybooks.search;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:09.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Utility class used to split strings into trigrams for the title search index. Trigrams are lower
+ * case, so the trigrams of a string always include the trigrams of any of its substrings regardless
+ * of the letter case: the index can be used as a pre-filter for case-sensitive substring matches.
+ */
+public final class Trigrams {
+
+  /**
+   * Length of the indexed grams; shorter search strings cannot be resolved through the index.
+   */
+  public static final int LENGTH = 3;
+
+  private Trigrams() {
+  }
+
+  /**
+   * Split the specified string into its distinct trigrams, in order of first occurrence.
+   *
+   * @param value string to be split
+   *
+   * @return the distinct trigrams of the string, empty list if the string is null or shorter than
+   * a trigram
+   */
+  public static List<String> of(String value) {
+    if (value == null || value.length() < LENGTH) {
+      return Collections.emptyList();
+    }
+
+    String lower = value.toLowerCase(Locale.ROOT);
+    Set<String> trigrams = new LinkedHashSet<>();
+    for (int i = 0; i + LENGTH <= lower.length(); i++) {
+      trigrams.add(lower.substring(i, i + LENGTH));
+    }
+    return new ArrayList<>(trigrams);
+  }
+}
@@ -0,0 +1,212 @@
+package it.terrinoni.terrybooks.service;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:59.
+ */
+
+import com.mongodb.WriteConcern;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BulkItemResult;
+import it.terrinoni.terrybooks.model.BulkItemResult.Status;
+import it.terrinoni.terrybooks.repository.BookRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Group commit of the single book insertions: concurrent insertions are queued and stored together
+ * by a single flusher thread with one unordered bulk write, flushed as soon as the batch is full or
+ * the oldest insertion has waited for the configured linger time. Every insertion is completed with
+ * its own outcome, so duplicate keys are still reported per book, while the catalog statistics are
+ * updated once per batch.
+ *
+ * <p>The batcher is disabled by default; when the queue is full, new insertions are rejected
+ * instead of waiting.
+ */
+@Component
+public class BookInsertBatcher {
+
+  private static final Logger log = LoggerFactory.getLogger(BookInsertBatcher.class);
+
+  @Autowired
+  BookRepository bookRepository;
+
+  @Autowired
+  CatalogStatsService statsService;
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @Value("${custom.ingest.groupcommit.enabled:false}")
+  private boolean enabled;
+  @Value("${custom.ingest.groupcommit.batchsize:200}")
+  private int batchSize;
+  @Value("${custom.ingest.groupcommit.lingerms:5}")
+  private long lingerMillis;
+  @Value("${custom.ingest.groupcommit.queuecapacity:10000}")
+  private int queueCapacity;
+  @Value("${custom.ingest.groupcommit.writeconcern:ACKNOWLEDGED}")
+  private String writeConcernName;
+
+  private BlockingQueue<PendingInsert> queue;
+  private WriteConcern writeConcern;
+  private DistributionSummary batchSizeSummary;
+  private Thread flusher;
+  private volatile boolean running;
+
+  /**
+   * Insertion waiting in the queue, along with the future completed with its outcome.
+   */
+  private static final class PendingInsert {
+
+    private final Book book;
+    private final CompletableFuture<BulkItemResult> result = new CompletableFuture<>();
+
+    private PendingInsert(Book book) {
+      this.book = book;
+    }
+  }
+
+  @PostConstruct
+  void start() {
+    if (!enabled) {
+      return;
+    }
+
+    writeConcern = WriteConcern.valueOf(writeConcernName);
+    if (writeConcern == null) {
+      throw new IllegalArgumentException(
+          String.format("Unknown group commit write concern: %s", writeConcernName));
+    }
+    queue = new ArrayBlockingQueue<>(queueCapacity);
+    batchSizeSummary = DistributionSummary.builder("book.insert.batch.size")
+        .description("Number of books stored by a single group commit")
+        .baseUnit("books")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    meterRegistry.gaugeCollectionSize("book.insert.queue.size", Tags.empty(), queue);
+
+    running = true;
+    flusher = new Thread(this::flushLoop, "book-insert-flusher");
+    flusher.setDaemon(true);
+    flusher.start();
+    log.info("Group commit of book insertions enabled: batch size {}, linger {} ms, "
+        + "write concern {}", batchSize, lingerMillis, writeConcernName);
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    if (flusher != null) {
+      // The flusher drains the queue before terminating
+      running = false;
+      flusher.join();
+    }
+  }
+
+  /**
+   * Check whether the group commit of the single book insertions is enabled.
+   *
+   * @return true if the insertions are batched
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Queue a new book to be stored with the next group commit.
+   *
+   * @param book book to be stored
+   *
+   * @return the future outcome of the insertion
+   *
+   * @throws RejectedExecutionException if the queue is full
+   */
+  public CompletableFuture<BulkItemResult> submit(Book book) {
+    PendingInsert pending = new PendingInsert(book);
+    if (!running || !queue.offer(pending)) {
+      throw new RejectedExecutionException("Book insertion queue is full");
+    }
+    return pending.result;
+  }
+
+  private void flushLoop() {
+    List<PendingInsert> batch = new ArrayList<>(batchSize);
+    boolean interrupted = false;
+    while (running || !queue.isEmpty()) {
+      try {
+        PendingInsert first = queue.poll(lingerMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+
+        // The batch is flushed when full or when the first insertion has waited long enough
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        while (batch.size() < batchSize) {
+          long remaining = deadline - System.nanoTime();
+          PendingInsert next = remaining > 0
+              ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+      } catch (InterruptedException iEx) {
+        // The queue is still drained, the interruption is restored once done
+        interrupted = true;
+        running = false;
+      }
+
+      if (!batch.isEmpty()) {
+        flush(batch);
+        batch.clear();
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void flush(List<PendingInsert> batch) {
+    List<Book> books = new ArrayList<>(batch.size());
+    batch.forEach(p -> books.add(p.book));
+    batchSizeSummary.record(books.size());
+
+    List<BulkItemResult> results;
+    try {
+      results = bookRepository.insertAll(books, writeConcern);
+    } catch (RuntimeException ex) {
+      log.error("Unable to store a group commit of {} books, exception: {}", books.size(),
+          ex.getMessage());
+      batch.forEach(p -> p.result.completeExceptionally(ex));
+      return;
+    }
+
+    List<Book> inserted = new ArrayList<>(batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      if (results.get(i).getStatus() == Status.INSERTED) {
+        inserted.add(books.get(i));
+      }
+      batch.get(i).result.complete(results.get(i));
+    }
+
+    // The counters of the whole batch are updated together, after the insertions are completed
+    if (!inserted.isEmpty()) {
+      statsService.booksInserted(inserted);
+    }
+  }
+}
@@ -4,18 +4,52 @@ package it.terrinoni.terrybooks.service;
  * Created by Marco Terrinoni, on 21/01/2018 - 01:56.
  */
 
-import com.mongodb.DuplicateKeyException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mongodb.MongoException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.terrinoni.terrybooks.cache.BookCache;
+import it.terrinoni.terrybooks.cache.BookListCache;
+import it.terrinoni.terrybooks.exception.custom.InvalidRequestParameterException;
 import it.terrinoni.terrybooks.exception.custom.KeyDuplicationException;
 import it.terrinoni.terrybooks.exception.custom.MissingIdentifierInRequestException;
 import it.terrinoni.terrybooks.exception.custom.ObjectStorageException;
+import it.terrinoni.terrybooks.exception.custom.PreconditionFailedException;
 import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.BookCount;
+import it.terrinoni.terrybooks.model.BookField;
+import it.terrinoni.terrybooks.model.BookFilter;
+import it.terrinoni.terrybooks.model.BookLookupResult;
+import it.terrinoni.terrybooks.model.BookPage;
+import it.terrinoni.terrybooks.model.BulkDeleteResult;
+import it.terrinoni.terrybooks.model.BulkItemResult;
+import it.terrinoni.terrybooks.model.BulkItemResult.Status;
+import it.terrinoni.terrybooks.model.BulkOperationResult;
 import it.terrinoni.terrybooks.repository.BookRepository;
+import it.terrinoni.terrybooks.repository.BookRevision;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import javax.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
 /**
@@ -26,276 +60,962 @@ public class BookService {
 
   private static final Logger log = LoggerFactory.getLogger(BookService.class);
 
+  private static final Set<Status> WRITTEN_STATUSES = EnumSet
+      .of(Status.INSERTED, Status.UPDATED, Status.DELETED);
+
+  private static final Set<BookField> PATCHABLE_FIELDS = EnumSet
+      .of(BookField.TITLE, BookField.AUTHOR, BookField.PUBLISH_DATE, BookField.SUMMARY,
+          BookField.NOTE);
+
   @Autowired
   BookRepository bookRepository;
 
+  @Autowired
+  BookCache bookCache;
+
+  @Autowired
+  BookListCache bookListCache;
+
+  @Autowired
+  MeterRegistry meterRegistry;
+
+  @Autowired
+  ObjectMapper objectMapper;
+
+  @Autowired
+  BookInsertBatcher insertBatcher;
+
+  @Autowired
+  CatalogStatsService statsService;
+
+  @Value("${custom.bulk.batchsize:1000}")
+  private int bulkBatchSize;
+  @Value("${custom.bulk.update.batchsize:1000}")
+  private int bulkUpdateBatchSize;
+  @Value("${custom.bulk.delete.batchsize:1000}")
+  private int bulkDeleteBatchSize;
+  @Value("${custom.lookup.maxsize:1000}")
+  private int maxLookupSize;
+  @Value("${custom.lookup.chunksize:500}")
+  private int lookupChunkSize;
+  @Value("${custom.pagination.defaultlimit:100}")
+  private int defaultPageSize;
+  @Value("${custom.pagination.maxlimit:1000}")
+  private int maxPageSize;
+  @Value("${custom.count.limit:10000}")
+  private int countLimit;
+
+  private DistributionSummary bookListSize;
+  private DistributionSummary bookPageSize;
+
+  @PostConstruct
+  void initMetrics() {
+    bookListSize = DistributionSummary.builder("book.list.size")
+        .description("Number of books returned by a book list query")
+        .baseUnit("books")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    bookPageSize = DistributionSummary.builder("book.page.size")
+        .description("Number of books returned by a book page query")
+        .baseUnit("books")
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+
   /**
    * Service method to store a new book.
    *
-   * @param requestId internal request identifier
-   * @param book      book object to be stored
+   * @param book book object to be stored
    *
    * @return the stored book
    */
-  public Book addBook(int requestId, Book book) {
-    log.debug("[{}] Store the new book with following data: {}", requestId, book.toString());
+  public Book addBook(Book book) {
+    log.debug("Store the new book with following data: {}", book);
 
     Book storedBook;
 
     try {
       storedBook = bookRepository.insert(book);
     } catch (DuplicateKeyException dkEx) {
-      String msg = String
-          .format("[%d] Unable to store the specified book, the selected key already exists",
-              requestId);
-      log.error(msg);
+      String msg = "Unable to store the specified book, the selected key already exists";
+      log.debug(msg);
       throw new KeyDuplicationException(msg);
     } catch (MongoException mEx) {
       String msg = String
-          .format("[%d] Unable to store the specified book, exception: %s", requestId,
-              mEx.getMessage());
+          .format("Unable to store the specified book, exception: %s", mEx.getMessage());
       log.error(msg);
       throw new ObjectStorageException(msg, mEx);
     }
 
-    log.info("[{}] New book storage completed with ISBN: {}", requestId, storedBook.getIsbn());
+    bookCache.put(storedBook);
+    bookListCache.bumpVersion();
+    statsService.bookInserted(storedBook);
+
+    log.info("New book storage completed with ISBN: {}", storedBook.getIsbn());
+
+    return storedBook;
+  }
+
+  /**
+   * Check whether the single book insertions are stored through the group commit.
+   *
+   * @return true if the group commit is enabled
+   */
+  public boolean isGroupCommitEnabled() {
+    return insertBatcher.isEnabled();
+  }
+
+  /**
+   * Service method to store a new book through the group commit of the single book insertions; the
+   * book is stored along with the other concurrent insertions, and the returned future is completed
+   * once the whole batch has been written.
+   *
+   * @param book book object to be stored
+   *
+   * @return the future stored book
+   */
+  public CompletableFuture<Book> addBookGrouped(Book book) {
+    log.debug("Queue the new book with following data: {}", book);
+
+    if (book.getIsbn() == null || book.getIsbn().isEmpty()) {
+      String msg = "Missing book identifier in request";
+      log.debug(msg);
+      throw new MissingIdentifierInRequestException(msg);
+    }
+
+    CompletableFuture<Book> storedBook = new CompletableFuture<>();
+    insertBatcher.submit(book).whenComplete((result, t) -> {
+      if (t != null) {
+        String msg = String
+            .format("Unable to store the specified book, exception: %s", t.getMessage());
+        storedBook.completeExceptionally(new ObjectStorageException(msg, t));
+      } else if (result.getStatus() == Status.INSERTED) {
+        bookCache.put(book);
+        bookListCache.bumpVersion();
+        storedBook.complete(book);
+      } else if (result.getStatus() == Status.DUPLICATE) {
+        String msg = "Unable to store the specified book, the selected key already exists";
+        log.debug(msg);
+        storedBook.completeExceptionally(new KeyDuplicationException(msg));
+      } else {
+        String msg = String
+            .format("Unable to store the specified book, exception: %s", result.getMessage());
+        log.error(msg);
+        storedBook.completeExceptionally(new ObjectStorageException(msg, null));
+      }
+    });
 
     return storedBook;
   }
 
+  /**
+   * Service method to store a list of new books. The books are stored in batches through unordered
+   * bulk writes, so every book is processed even if some of them fail; books without identifier are
+   * rejected without reaching the database.
+   *
+   * @param bookList list of books to be stored
+   *
+   * @return the outcome of every book, in the same order of the input list
+   */
+  public BulkOperationResult addBooksBulk(List<Book> bookList) {
+    log.debug("Store {} new books in batches of {}", bookList.size(), bulkBatchSize);
+
+    List<BulkItemResult> results = new ArrayList<>(bookList.size());
+    int batchCapacity = Math.min(bulkBatchSize, bookList.size());
+    List<Book> batch = new ArrayList<>(batchCapacity);
+    List<Integer> batchPositions = new ArrayList<>(batchCapacity);
+
+    for (Book book : bookList) {
+      if (book.getIsbn() == null || book.getIsbn().isEmpty()) {
+        results.add(new BulkItemResult(null, Status.FAILED, "Missing book identifier"));
+        continue;
+      }
+      batchPositions.add(results.size());
+      results.add(null);
+      batch.add(book);
+
+      if (batch.size() == bulkBatchSize) {
+        insertBatch(batch, batchPositions, results);
+      }
+    }
+    if (!batch.isEmpty()) {
+      insertBatch(batch, batchPositions, results);
+    }
+
+    bookListCache.bumpVersion();
+
+    // Results are in the same order of the input list, one per book
+    List<Book> insertedBooks = new ArrayList<>();
+    for (int i = 0; i < results.size(); i++) {
+      if (results.get(i).getStatus() == Status.INSERTED) {
+        insertedBooks.add(bookList.get(i));
+      }
+    }
+    statsService.booksInserted(insertedBooks);
+
+    BulkOperationResult result = new BulkOperationResult(results);
+    log.info("Bulk storage completed: {}", result.getSummary());
+
+    return result;
+  }
+
   /**
    * Service method to retrieve the specific book identifier by the ISBN parameter.
    *
-   * @param requestId internal request identifier
-   * @param isbn      book unique identifier
+   * @param isbn   book unique identifier
+   * @param fields comma-separated list of the fields to be returned, null for the whole book
    *
    * @return the retrieved book if exists, null otherwise
    */
-  public Book getBook(int requestId, String isbn) {
-    log.debug("[{}] Retrieve the selected book with ISBN: {}", requestId, isbn);
+  public Book getBook(String isbn, String fields) {
+    log.debug("Retrieve the selected book with ISBN: {}, fields: {}", isbn, fields);
 
     // Check main identifier (this is always forced by Spring but the check is still performed for the sake of robustness)
     if (isbn == null || isbn.isEmpty()) {
-      String msg = String
-          .format("[%d] Missing book identifier in request", requestId);
-      log.error(msg);
+      String msg = "Missing book identifier in request";
+      log.debug(msg);
       throw new MissingIdentifierInRequestException(msg);
     }
+    Set<BookField> bookFields = parseFields(fields);
 
-    Book book;
+    // Look up the cache first, both for found and for missing books
+    if (bookCache.isMissing(isbn)) {
+      log.warn("Book not found with ISBN: {} (cached)", isbn);
+      return null;
+    }
+    Book book = bookCache.get(isbn);
+    if (book != null) {
+      log.info("Book found with ISBN: {} (cached)", isbn);
+      return book;
+    }
 
-    // Retrieve the item
+    // Retrieve the item, only the whole book is cached
+    long fillToken = bookCache.fillToken(isbn);
     try {
-      book = bookRepository.findOne(isbn);
+      book = bookRepository.findOne(isbn, bookFields);
     } catch (MongoException mEx) {
       String msg = String
-          .format("[%d] Unable to retrieve the specified book, exception: %s", requestId,
-              mEx.getMessage());
+          .format("Unable to retrieve the specified book, exception: %s", mEx.getMessage());
       log.error(msg);
       throw new RuntimeException(msg, mEx);
     }
 
     if (book == null) {
-      log.warn("[{}] Book not found with ISBN: {}", requestId, isbn);
+      bookCache.fillMissing(isbn, fillToken);
+      log.warn("Book not found with ISBN: {}", isbn);
       return null;
     }
+    if (bookFields == null) {
+      bookCache.fill(book, fillToken);
+    }
 
-    log.info("[{}] Book found with ISBN: {}", requestId, book.getIsbn());
+    log.info("Book found with ISBN: {}", book.getIsbn());
 
     return book;
   }
 
   /**
-   * Service method to retrieve the list of books that match with the specified parameters.
+   * Service method to retrieve many books by ISBN at once. Cached books are served first, and the
+   * other ones are retrieved with a query per chunk of ISBNs, instead of a query per book.
+   *
+   * @param isbns  book unique identifiers, duplicates are ignored
+   * @param fields comma-separated list of the fields to be returned, null for the whole books
+   *
+   * @return the books found and the ISBNs of the missing ones, in the same order of the request
+   */
+  public BookLookupResult lookupBooks(List<String> isbns, String fields) {
+    log.debug("Retrieve {} books by ISBN, fields: {}", isbns == null ? 0 : isbns.size(), fields);
+
+    if (isbns == null || isbns.isEmpty() || isbns.size() > maxLookupSize
+        || isbns.stream().anyMatch(i -> i == null || i.isEmpty())) {
+      String msg = String
+          .format("Invalid book identifiers, between 1 and %d non-empty identifiers are expected",
+              maxLookupSize);
+      log.debug(msg);
+      throw new InvalidRequestParameterException(msg);
+    }
+    Set<BookField> bookFields = parseFields(fields);
+
+    // Look up the cache first, both for found and for missing books
+    Set<String> requested = new LinkedHashSet<>(isbns);
+    Map<String, Book> found = new HashMap<>();
+    List<String> pending = new ArrayList<>();
+    for (String isbn : requested) {
+      if (bookCache.isMissing(isbn)) {
+        continue;
+      }
+      Book book = bookCache.get(isbn);
+      if (book != null) {
+        found.put(isbn, book);
+      } else {
+        pending.add(isbn);
+      }
+    }
+    int cached = requested.size() - pending.size();
+
+    // Retrieve the other items, only whole books are cached
+    for (int i = 0; i < pending.size(); i += lookupChunkSize) {
+      List<String> chunk = pending.subList(i, Math.min(i + lookupChunkSize, pending.size()));
+      Map<String, Long> fillTokens = new HashMap<>();
+      chunk.forEach(isbn -> fillTokens.put(isbn, bookCache.fillToken(isbn)));
+      List<Book> books;
+      try {
+        books = bookRepository.findMany(chunk, bookFields);
+      } catch (MongoException mEx) {
+        String msg = String
+            .format("Unable to retrieve the specified books, exception: %s", mEx.getMessage());
+        log.error(msg);
+        throw new RuntimeException(msg, mEx);
+      }
+
+      for (Book book : books) {
+        found.put(book.getIsbn(), book);
+        if (bookFields == null) {
+          bookCache.fill(book, fillTokens.get(book.getIsbn()));
+        }
+      }
+      chunk.stream().filter(isbn -> !found.containsKey(isbn))
+          .forEach(isbn -> bookCache.fillMissing(isbn, fillTokens.get(isbn)));
+    }
+
+    List<Book> books = new ArrayList<>(found.size());
+    List<String> missing = new ArrayList<>();
+    for (String isbn : requested) {
+      Book book = found.get(isbn);
+      if (book != null) {
+        books.add(book);
+      } else {
+        missing.add(isbn);
+      }
+    }
+
+    log.info("Books found: {}, missing: {} ({} resolved from cache)", books.size(), missing.size(),
+        cached);
+
+    return new BookLookupResult(books, missing);
+  }
+
+  /**
+   * Service method to retrieve the list of books that match with the specified filter.
    *
-   * @param requestId         internal request identifier
-   * @param author            author name
-   * @param titleLike         book title
-   * @param publishDateBefore publication date before the specified parameter
-   * @param publishDateAfter  publication date after the specified parameter
+   * @param filter book filter
+   * @param fields comma-separated list of the fields to be returned, null for the whole books
    *
    * @return the list of retrieved books if exists, empty list otherwise
    */
-  public List<Book> getBookList(int requestId, String author, String titleLike,
-      Date publishDateBefore, Date publishDateAfter) {
-    log.debug(
-        "[{}] Retrieve the list of books that match with the following parameters: author: {}, title_like: {}, publish_date_before: {}, publish_date_after: {}",
-        requestId, author, titleLike, publishDateBefore, publishDateAfter);
+  public List<Book> getBookList(BookFilter filter, String fields) {
+    log.debug("Retrieve the list of books that match with the following filter: {}, fields: {}",
+        filter, fields);
+
+    Set<BookField> bookFields = parseFields(fields);
+
+    // A cached list holds whole books, so it serves any projection
+    List<Book> bookList = bookListCache.get(filter);
+    if (bookList != null) {
+      bookListSize.record(bookList.size());
+      log.info("{} total books found (cached)", bookList.size());
+      return bookList;
+    }
 
-    List<Book> bookList = bookListQueryExecutor(requestId, author, titleLike, publishDateBefore,
-        publishDateAfter);
+    long version = bookListCache.currentVersion();
+    try {
+      if (bookFields == null) {
+        bookList = bookListCache.put(filter, version, bookRepository.findAll(filter, null));
+      } else {
+        bookList = bookRepository.findAll(filter, bookFields);
+      }
+    } catch (MongoException mEx) {
+      String msg = String
+          .format("Unable to retrieve the list of books, exception: %s", mEx.getMessage());
+      log.error(msg);
+      throw new RuntimeException(msg, mEx);
+    }
 
-    log.info("[{}] {} total books found", requestId, bookList.size());
+    bookListSize.record(bookList.size());
+    log.info("{} total books found", bookList.size());
 
     return bookList;
   }
 
   /**
-   * Service method to update the selected book identified by the ISBN.
+   * Service method to count the books that match with the specified filter, without retrieving
+   * them. Counts beyond the configured limit are capped, so a huge result is never fully scanned;
+   * an empty filter is counted from the collection metadata.
    *
-   * @param requestId internal request identifier
-   * @param isbn      book unique identifier
-   * @param book      book object containing the updates to be applied
+   * @param filter book filter
    *
-   * @return the updated book
+   * @return the number of books that match with the filter
    */
-  public Book updateBook(int requestId, String isbn, Book book) {
-    log.debug("[{}] Update book with IBSN: {} with following data: {}", requestId, isbn,
-        book.toString());
+  public BookCount countBooks(BookFilter filter) {
+    log.debug("Count the books that match with the following filter: {}", filter);
+
+    // A cached list of the same filter is already counted
+    List<Book> bookList = bookListCache.get(filter);
+    if (bookList != null) {
+      log.info("{} total books counted (cached)", bookList.size());
+      return new BookCount(bookList.size(), false);
+    }
 
-    Book updatedBook;
+    long count;
     try {
-      updatedBook = bookRepository.save(book);
+      // One extra book is counted to know whether the count has been capped
+      count = bookRepository.count(filter, countLimit > 0 ? countLimit + 1 : 0);
     } catch (MongoException mEx) {
+      String msg = String.format("Unable to count the books, exception: %s", mEx.getMessage());
+      log.error(msg);
+      throw new RuntimeException(msg, mEx);
+    }
+
+    BookCount bookCount = !filter.isEmpty() && countLimit > 0 && count > countLimit
+        ? new BookCount(countLimit, true) : new BookCount(count, false);
+    log.info("{} total books counted", bookCount.toHeaderValue());
+
+    return bookCount;
+  }
+
+  /**
+   * Service method to retrieve a single page of the books that match with the specified
+   * parameters. Pages are ordered by publish date and ISBN if the publish date is restricted, by
+   * ISBN otherwise, and addressed by an opaque continuation token, so the cost of a page does not
+   * depend on its position in the result.
+   *
+   * @param filter book filter
+   * @param cursor continuation token returned with the previous page, null for the first page
+   * @param limit  maximum number of books in the page, null for the default page size
+   * @param fields comma-separated list of the fields to be returned, null for the whole books
+   *
+   * @return the page of retrieved books along with the continuation token of the following page
+   */
+  public BookPage getBookPage(BookFilter filter, String cursor, Integer limit, String fields) {
+    log.debug(
+        "Retrieve the page of books that match with the following filter: {}, cursor: {}, limit: {}, fields: {}",
+        filter, cursor, limit, fields);
+
+    int pageSize = limit == null ? defaultPageSize : limit;
+    if (pageSize < 1 || pageSize > maxPageSize) {
       String msg = String
-          .format("[%d] Unable to update the specified book, exception: %s", requestId,
-              mEx.getMessage());
+          .format("Invalid page limit %d, it must be between 1 and %d", pageSize, maxPageSize);
+      log.debug(msg);
+      throw new InvalidRequestParameterException(msg);
+    }
+    Book after = decodeCursor(cursor, filter);
+    Set<BookField> bookFields = parseFields(fields);
+
+    List<Book> bookList;
+    try {
+      // One extra book is requested to know whether a following page exists
+      bookList = bookRepository.findPage(filter, after, pageSize + 1, bookFields);
+    } catch (MongoException mEx) {
+      String msg = String
+          .format("Unable to retrieve the page of books, exception: %s", mEx.getMessage());
+      log.error(msg);
+      throw new RuntimeException(msg, mEx);
+    }
+
+    String nextCursor = null;
+    if (bookList.size() > pageSize) {
+      bookList = bookList.subList(0, pageSize);
+      nextCursor = encodeCursor(bookList.get(pageSize - 1), filter);
+    }
+
+    bookPageSize.record(bookList.size());
+    log.info("{} books found in page", bookList.size());
+
+    return new BookPage(bookList, nextCursor);
+  }
+
+  /**
+   * Service method to lazily retrieve the books that match with the specified parameters; the
+   * books are read from the database cursor while the returned stream is consumed, so the whole
+   * result is never kept in memory. The caller is responsible for closing the stream.
+   *
+   * @param filter book filter
+   * @param fields comma-separated list of the fields to be returned, null for the whole books
+   *
+   * @return the stream of retrieved books
+   */
+  public Stream<Book> streamBookList(BookFilter filter, String fields) {
+    log.debug("Stream the list of books that match with the following filter: {}, fields: {}",
+        filter, fields);
+
+    Set<BookField> bookFields = parseFields(fields);
+    try {
+      return bookRepository.streamAll(filter, bookFields);
+    } catch (MongoException mEx) {
+      String msg = String
+          .format("Unable to stream the list of books, exception: %s", mEx.getMessage());
       log.error(msg);
       throw new RuntimeException(msg, mEx);
     }
+  }
+
+  /**
+   * Service method to update the selected book identified by the ISBN; every field that can be
+   * changed is replaced with the related value of the specified book.
+   *
+   * @param isbn            book unique identifier
+   * @param book            book object containing the updates to be applied
+   * @param expectedVersion version the stored book must have, null to update any version
+   *
+   * @return the updated book if exists, null otherwise
+   */
+  public Book updateBook(String isbn, Book book, Long expectedVersion) {
+    log.debug("Update book with IBSN: {} with following data: {}, expected version: {}", isbn, book,
+        expectedVersion);
+
+    if (book.getIsbn() != null && !book.getIsbn().equals(isbn)) {
+      String msg = String
+          .format("Invalid book, ISBN %s does not match with the requested one", book.getIsbn());
+      log.debug(msg);
+      throw new InvalidRequestParameterException(msg);
+    }
 
-    log.info("[{}] Book successfully update with ISBN: {}", requestId, isbn);
+    Map<BookField, Object> bookChanges = new EnumMap<>(BookField.class);
+    PATCHABLE_FIELDS.forEach(f -> bookChanges.put(f, f.valueOf(book)));
+
+    Book updatedBook = writeChanges(isbn, bookChanges, expectedVersion);
+    if (updatedBook != null) {
+      log.info("Book successfully update with ISBN: {}", isbn);
+    }
 
     return updatedBook;
   }
 
   /**
-   * Service method to remove the selected book identified by the ISBN.
+   * Service method to partially update the selected book identified by the ISBN; only the fields
+   * contained in the changes are written, a null value removes the field. Identifier and audit
+   * fields cannot be changed.
+   *
+   * @param isbn            book unique identifier
+   * @param changes         JSON properties of the book to be changed
+   * @param expectedVersion version the stored book must have, null to update any version
+   *
+   * @return the updated book if exists, null otherwise
+   */
+  public Book patchBook(String isbn, Map<String, Object> changes, Long expectedVersion) {
+    log.debug("Patch book with ISBN: {} with following changes: {}, expected version: {}", isbn,
+        changes, expectedVersion);
+
+    Book patchedBook = writeChanges(isbn, toBookChanges(changes), expectedVersion);
+    if (patchedBook != null) {
+      log.info("Book successfully patched with ISBN: {}", isbn);
+    }
+
+    return patchedBook;
+  }
+
+  /**
+   * Service method to partially update a list of books. Every item contains the ISBN of the book
+   * along with the fields to be changed, as the partial update of a single book; the updates are
+   * applied in batches through unordered bulk writes, so every item is processed even if some of
+   * them fail.
+   *
+   * @param items ISBN and JSON properties to be changed of every book
    *
-   * @param requestId internal request identifier
-   * @param isbn      book unique identifier
+   * @return the outcome of every item, in the same order of the input list
    */
-  public void deleteBook(int requestId, String isbn) {
-    log.debug("[{}] Remove book with ISBN: {}", requestId, isbn);
+  public BulkOperationResult updateBooksBulk(List<Map<String, Object>> items) {
+    log.debug("Update {} books in batches of {}", items.size(), bulkUpdateBatchSize);
+
+    List<BulkItemResult> results = new ArrayList<>(items.size());
+    Map<String, Map<BookField, Object>> batch = new LinkedHashMap<>();
+    List<Integer> batchPositions = new ArrayList<>();
+    Set<String> requested = new HashSet<>();
+    Set<String> countedChanges = new HashSet<>();
+
+    for (Map<String, Object> item : items) {
+      Object isbn = item == null ? null : item.get(BookField.ISBN.getJsonName());
+      if (!(isbn instanceof String) || ((String) isbn).isEmpty()) {
+        results.add(new BulkItemResult(null, Status.FAILED, "Missing book identifier"));
+        continue;
+      }
+      if (!requested.add((String) isbn)) {
+        // Unordered writes of the same book would be applied in any order
+        results.add(new BulkItemResult((String) isbn, Status.FAILED,
+            "Book identifier already present in the request"));
+        continue;
+      }
 
+      Map<String, Object> changes = new HashMap<>(item);
+      changes.remove(BookField.ISBN.getJsonName());
+      Map<BookField, Object> bookChanges;
+      try {
+        bookChanges = toBookChanges(changes);
+      } catch (InvalidRequestParameterException irpEx) {
+        results.add(new BulkItemResult((String) isbn, Status.FAILED, irpEx.getMessage()));
+        continue;
+      }
+      batch.put((String) isbn, bookChanges);
+      if (isCounted(bookChanges)) {
+        countedChanges.add((String) isbn);
+      }
+      batchPositions.add(results.size());
+      results.add(null);
+
+      if (batch.size() == bulkUpdateBatchSize) {
+        writeBatch(new ArrayList<>(batch.keySet()), batchPositions, results,
+            () -> bookRepository.updateMany(batch));
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      writeBatch(new ArrayList<>(batch.keySet()), batchPositions, results,
+          () -> bookRepository.updateMany(batch));
+    }
+
+    bookListCache.bumpVersion();
+    // Only the books whose counted fields have changed can leave the counters stale
+    List<BulkItemResult> countedResults = new ArrayList<>(countedChanges.size());
+    results.stream().filter(r -> countedChanges.contains(r.getIsbn()))
+        .forEach(countedResults::add);
+    markStatsStale(countedResults);
+
+    BulkOperationResult result = new BulkOperationResult(results);
+    log.info("Bulk update completed: {}", result.getSummary());
+
+    return result;
+  }
+
+  /**
+   * Service method to remove a list of books, identified by ISBN; the books are removed in batches,
+   * so every book is processed even if some batches fail.
+   *
+   * @param isbns book unique identifiers
+   *
+   * @return the outcome of every book, in the same order of the input list
+   */
+  public BulkOperationResult deleteBooksBulk(List<String> isbns) {
+    log.debug("Remove {} books in batches of {}", isbns.size(), bulkDeleteBatchSize);
+
+    List<BulkItemResult> results = new ArrayList<>(isbns.size());
+    List<String> batch = new ArrayList<>(Math.min(bulkDeleteBatchSize, isbns.size()));
+    List<Integer> batchPositions = new ArrayList<>(Math.min(bulkDeleteBatchSize, isbns.size()));
+
+    for (String isbn : isbns) {
+      if (isbn == null || isbn.isEmpty()) {
+        results.add(new BulkItemResult(null, Status.FAILED, "Missing book identifier"));
+        continue;
+      }
+      batchPositions.add(results.size());
+      results.add(null);
+      batch.add(isbn);
+
+      if (batch.size() == bulkDeleteBatchSize) {
+        writeBatch(batch, batchPositions, results, () -> bookRepository.deleteMany(batch));
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) {
+      writeBatch(batch, batchPositions, results, () -> bookRepository.deleteMany(batch));
+    }
+
+    bookListCache.bumpVersion();
+    markStatsStale(results);
+
+    BulkOperationResult result = new BulkOperationResult(results);
+    log.info("Bulk removal completed: {}", result.getSummary());
+
+    return result;
+  }
+
+  /**
+   * Service method to remove every book that matches with the specified filter; at least one filter
+   * parameter is required, so the whole collection cannot be removed by mistake.
+   *
+   * @param filter book filter
+   *
+   * @return the number of books removed
+   */
+  public BulkDeleteResult deleteBooks(BookFilter filter) {
+    log.debug("Remove the books that match with the following filter: {}", filter);
+
+    if (filter.isEmpty()) {
+      String msg = "Missing book filter in request, at least one filter parameter is required";
+      log.debug(msg);
+      throw new InvalidRequestParameterException(msg);
+    }
+
+    long deleted;
     try {
-      bookRepository.delete(isbn);
+      deleted = bookRepository.deleteMatching(filter);
     } catch (MongoException mEx) {
       String msg = String
-          .format("[%d] Unable to delete the specified book, exception: %s", requestId,
-              mEx.getMessage());
+          .format("Unable to delete the specified books, exception: %s", mEx.getMessage());
       log.error(msg);
       throw new RuntimeException(msg, mEx);
     }
 
-    log.info("[{}] Book successfully deleted with ISBN: {}", requestId, isbn);
+    // The removed books are not known, so no cached book can be trusted
+    bookCache.invalidateAll();
+    bookListCache.bumpVersion();
+    if (deleted > 0) {
+      // The removed books are not known, so the counters are corrected by the reconciliation
+      statsService.markStale();
+    }
+
+    log.info("Books successfully deleted: {}", deleted);
+
+    return new BulkDeleteResult(deleted);
   }
 
-  // PRIVATE INTERNAL METHODS
+  /**
+   * Service method to remove the selected book identified by the ISBN.
+   *
+   * @param isbn            book unique identifier
+   * @param expectedVersion version the stored book must have, null to remove any version
+   */
+  public void deleteBook(String isbn, Long expectedVersion) {
+    log.debug("Remove book with ISBN: {}, expected version: {}", isbn, expectedVersion);
+
+    Book deletedBook;
+    try {
+      deletedBook = bookRepository.delete(isbn, expectedVersion);
+    } catch (MongoException mEx) {
+      String msg = String
+          .format("Unable to delete the specified book, exception: %s", mEx.getMessage());
+      log.error(msg);
+      throw new RuntimeException(msg, mEx);
+    }
+
+    if (deletedBook == null && expectedVersion != null) {
+      String msg = String
+          .format("Book with ISBN %s not found with version %d", isbn, expectedVersion);
+      log.debug(msg);
+      throw new PreconditionFailedException(msg);
+    }
+
+    bookCache.invalidate(isbn);
+    bookListCache.bumpVersion();
+    if (deletedBook != null) {
+      statsService.bookDeleted(deletedBook);
+    }
+
+    log.info("Book successfully deleted with ISBN: {}", isbn);
+  }
 
   /**
-   * Private internal method that is used to understand which query method from book repository
-   * apply to retrieve the list of books, based on the input parameters received from the
-   * controller. If no parameters is specified, this method executes the "find all" query, returning
-   * the whole book collection.
+   * Service method to validate the comma-separated list of the fields to be returned.
    *
-   * @param author            author name
-   * @param titleLike         book title
-   * @param publishDateBefore publication date before the specified parameter
-   * @param publishDateAfter  publication date after the specified parameter
+   * @param fields comma-separated list of the fields to be returned
    *
-   * @return the list of books that match with the specified parameters
+   * @return the fields to be returned, null if the list is not specified
    */
-  private List<Book> bookListQueryExecutor(int requestId, String author, String titleLike,
-      Date publishDateBefore,
-      Date publishDateAfter) {
+  public Set<BookField> parseFields(String fields) {
+    try {
+      return BookField.parse(fields);
+    } catch (IllegalArgumentException iaEx) {
+      String msg = String.format("Invalid fields parameter, %s", iaEx.getMessage());
+      log.debug(msg);
+      throw new InvalidRequestParameterException(msg);
+    }
+  }
 
-    List<Book> bookList;
+  // PRIVATE INTERNAL METHODS
 
+  /**
+   * Private internal method that writes the changes of a book through a single conditional update,
+   * refreshing the caches; the book before the update, returned by the same write, moves the book
+   * between the statistics counters if needed. If the update fails and a version is expected, the
+   * book existence is checked to distinguish a version mismatch from a missing book.
+   *
+   * @param isbn            book unique identifier
+   * @param changes         new value of every field to be updated, a null value removes the field
+   * @param expectedVersion version the stored book must have, null to update any version
+   *
+   * @return the updated book if exists, null otherwise
+   */
+  private Book writeChanges(String isbn, Map<BookField, Object> changes, Long expectedVersion) {
+    BookRevision revision;
     try {
-      if (author != null && !author.isEmpty()) {
-        if (titleLike != null && !titleLike.isEmpty()) {
-          if (publishDateBefore != null) {
-            if (publishDateAfter != null) {
-              // author, title, publish date before, publish date after
-              bookList = bookRepository
-                  .findAllByAuthorAndTitleContainsAndPublishDateBeforeAndPublishDateAfter(author,
-                      titleLike, publishDateBefore, publishDateAfter);
-            } else {
-              // author, title, publish date before
-              bookList = bookRepository
-                  .findAllByAuthorAndTitleContainsAndPublishDateBefore(author, titleLike,
-                      publishDateBefore);
-            }
-          } else {
-            if (publishDateAfter != null) {
-              // author, title, publish date after
-              bookList = bookRepository
-                  .findAllByAuthorAndTitleContainsAndPublishDateAfter(author, titleLike,
-                      publishDateAfter);
-            } else {
-              // author, title
-              bookList = bookRepository.findAllByAuthorAndTitleContains(author, titleLike);
-            }
-          }
-        } else {
-          if (publishDateBefore != null) {
-            if (publishDateAfter != null) {
-              // author, publish date before, publish date after
-              bookList = bookRepository
-                  .findAllByAuthorAndPublishDateBeforeAndPublishDateAfter(author, publishDateBefore,
-                      publishDateAfter);
-            } else {
-              // author, publish date before
-              bookList = bookRepository
-                  .findAllByAuthorAndPublishDateBefore(author, publishDateBefore);
-            }
-          } else {
-            if (publishDateAfter != null) {
-              // author, publish date after
-              bookList = bookRepository
-                  .findAllByAuthorAndPublishDateAfter(author, publishDateAfter);
-            } else {
-              // author
-              bookList = bookRepository.findAllByAuthor(author);
-            }
-          }
-        }
-      } else if (titleLike != null && !titleLike.isEmpty()) {
-        if (publishDateBefore != null) {
-          if (publishDateAfter != null) {
-            // title, publish date before, publish date after
-            bookList = bookRepository
-                .findAllByTitleContainsAndPublishDateBeforeAndPublishDateAfter(titleLike,
-                    publishDateBefore, publishDateAfter);
-          } else {
-            // title, publish date before
-            bookList = bookRepository
-                .findAllByTitleContainsAndPublishDateBefore(titleLike, publishDateBefore);
-          }
-        } else {
-          if (publishDateAfter != null) {
-            // title, publish date after
-            bookList = bookRepository
-                .findAllByTitleContainsAndPublishDateAfter(titleLike, publishDateAfter);
-          } else {
-            // title
-            bookList = bookRepository.findAllByTitleContains(titleLike);
-          }
-        }
-      } else if (publishDateBefore != null) {
-        if (publishDateAfter != null) {
-          // publish date before, publish date after
-          bookList = bookRepository
-              .findAllByPublishDateBeforeAndPublishDateAfter(publishDateBefore, publishDateAfter);
-        } else {
-          // publish date before
-          bookList = bookRepository.findAllByPublishDateBefore(publishDateBefore);
-        }
-      } else if (publishDateAfter != null) {
-        // publish date after
-        bookList = bookRepository.findAllByPublishDateAfter(publishDateAfter);
-      } else {
-        bookList = bookRepository.findAll();
-      }
+      revision = bookRepository.patch(isbn, changes, expectedVersion);
     } catch (MongoException mEx) {
       String msg = String
-          .format("[%d] Unable to retrieve the list of books, exception: %s", requestId,
-              mEx.getMessage());
+          .format("Unable to update the specified book, exception: %s", mEx.getMessage());
       log.error(msg);
       throw new RuntimeException(msg, mEx);
     }
 
-    return bookList;
+    if (revision == null) {
+      // The book is checked only when the update fails, in order to report the right outcome
+      if (expectedVersion != null && bookRepository.exists(isbn)) {
+        String msg = String
+            .format("Book with ISBN %s not found with version %d", isbn, expectedVersion);
+        log.debug(msg);
+        throw new PreconditionFailedException(msg);
+      }
+      log.warn("Book not found with ISBN: {}", isbn);
+      return null;
+    }
+
+    Book updatedBook = revision.getUpdated();
+    bookCache.put(updatedBook);
+    bookListCache.bumpVersion();
+    if (isCounted(changes)) {
+      statsService.bookUpdated(revision.getPrevious(), updatedBook);
+    }
+
+    return updatedBook;
+  }
+
+  /**
+   * Private internal method that converts the JSON properties of a partial update into the changes
+   * of the related book fields. Identifier and audit fields cannot be changed.
+   *
+   * @param changes JSON properties of the book to be changed
+   *
+   * @return the new value of every field to be updated, a null value removes the field
+   */
+  private Map<BookField, Object> toBookChanges(Map<String, Object> changes) {
+    if (changes == null || changes.isEmpty()) {
+      String msg = "Missing book changes in request";
+      log.debug(msg);
+      throw new InvalidRequestParameterException(msg);
+    }
+
+    Map<BookField, Object> bookChanges = new EnumMap<>(BookField.class);
+    Book values;
+    try {
+      // Values are converted as the properties of a whole book, so the same formats are accepted
+      values = objectMapper.convertValue(changes, Book.class);
+    } catch (IllegalArgumentException iaEx) {
+      String msg = String.format("Invalid book changes, %s", iaEx.getMessage());
+      log.debug(msg);
+      throw new InvalidRequestParameterException(msg);
+    }
+    for (String name : changes.keySet()) {
+      BookField field = BookField.fromJsonName(name);
+      if (field == null || !PATCHABLE_FIELDS.contains(field)) {
+        String msg = String.format("Invalid book changes, field %s cannot be changed", name);
+        log.debug(msg);
+        throw new InvalidRequestParameterException(msg);
+      }
+      bookChanges.put(field, field.valueOf(values));
+    }
+    return bookChanges;
+  }
+
+  /**
+   * Private internal method that stores a single batch of books through the repository bulk write
+   * and copies the outcomes into the overall results. The batch lists are cleared once the batch
+   * has been stored.
+   *
+   * @param batch          books of the batch
+   * @param batchPositions positions of the batch books in the overall results
+   * @param results        overall results of the bulk operation
+   */
+  private void insertBatch(List<Book> batch, List<Integer> batchPositions,
+      List<BulkItemResult> results) {
+    List<String> isbns = new ArrayList<>(batch.size());
+    batch.forEach(b -> isbns.add(b.getIsbn()));
+    writeBatch(isbns, batchPositions, results, () -> bookRepository.insertAll(batch));
+    batch.clear();
+  }
+
+  /**
+   * Private internal method that runs a single bulk write of a batch of books and copies the
+   * outcomes into the overall results; the cached entries of the written books are dropped. If the
+   * whole batch fails, all of its books are reported as failed. The batch positions are cleared
+   * once the batch has been written.
+   *
+   * @param isbns          identifiers of the batch books
+   * @param batchPositions positions of the batch books in the overall results
+   * @param results        overall results of the bulk operation
+   * @param write          bulk write of the batch, returning the outcome of every book
+   */
+  private void writeBatch(List<String> isbns, List<Integer> batchPositions,
+      List<BulkItemResult> results, Supplier<List<BulkItemResult>> write) {
+    try {
+      List<BulkItemResult> batchResults = write.get();
+      for (int i = 0; i < batchResults.size(); i++) {
+        BulkItemResult result = batchResults.get(i);
+        results.set(batchPositions.get(i), result);
+        if (WRITTEN_STATUSES.contains(result.getStatus())) {
+          // Drop any cached book or not-found result of the written book
+          bookCache.invalidate(isbns.get(i));
+        }
+      }
+    } catch (DataAccessException | MongoException ex) {
+      log.error("Unable to write a batch of {} books, exception: {}", isbns.size(),
+          ex.getMessage());
+      for (int i = 0; i < isbns.size(); i++) {
+        results.set(batchPositions.get(i),
+            new BulkItemResult(isbns.get(i), Status.FAILED, ex.getMessage()));
+      }
+    }
+
+    batchPositions.clear();
+  }
+
+  /**
+   * Private internal method that checks whether the specified changes move the book between the
+   * catalog statistics counters, i.e. whether they change its authors or its publish date.
+   *
+   * @param changes new value of every field to be changed
+   *
+   * @return true if the changes affect the catalog statistics
+   */
+  private static boolean isCounted(Map<BookField, Object> changes) {
+    return changes.containsKey(BookField.AUTHOR) || changes.containsKey(BookField.PUBLISH_DATE);
+  }
+
+  /**
+   * Private internal method that reports the catalog statistics as stale if any book has been
+   * written by a bulk operation, since the written books are not known before the write.
+   *
+   * @param results outcome of every item of the bulk operation
+   */
+  private void markStatsStale(List<BulkItemResult> results) {
+    if (results.stream().anyMatch(r -> WRITTEN_STATUSES.contains(r.getStatus()))) {
+      statsService.markStale();
+    }
+  }
+
+  /**
+   * Private internal method that encodes the keys of the last book of a page into the opaque
+   * continuation token returned to the client: the ISBN, preceded by the publish date if the pages
+   * are ordered by publish date.
+   *
+   * @param book   last book of the page
+   * @param filter book filter of the page
+   *
+   * @return the continuation token
+   */
+  private String encodeCursor(Book book, BookFilter filter) {
+    String keys = filter.hasPublishDateRange()
+        ? book.getPublishDate().getTime() + ":" + book.getIsbn() : book.getIsbn();
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(keys.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Private internal method that decodes the continuation token received from the client into the
+   * keys of the last book of the previous page.
+   *
+   * @param cursor continuation token, null for the first page
+   * @param filter book filter of the page
+   *
+   * @return the last book of the previous page, holding its keys only, null for the first page
+   */
+  private Book decodeCursor(String cursor, BookFilter filter) {
+    if (cursor == null || cursor.isEmpty()) {
+      return null;
+    }
+
+    try {
+      String keys = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      if (!filter.hasPublishDateRange()) {
+        return new Book(keys, null, null, null, null, null);
+      }
+      int separator = keys.indexOf(':');
+      if (separator < 0) {
+        throw new IllegalArgumentException("Missing publish date");
+      }
+      Date publishDate = new Date(Long.parseLong(keys.substring(0, separator)));
+      return new Book(keys.substring(separator + 1), null, null, publishDate, null, null);
+    } catch (IllegalArgumentException iaEx) {
+      String msg = String.format("Invalid continuation token: %s", cursor);
+      log.debug(msg);
+      throw new InvalidRequestParameterException(msg);
+    }
   }
 }
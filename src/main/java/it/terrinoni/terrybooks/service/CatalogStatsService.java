@@ -0,0 +1,205 @@
+package it.terrinoni.terrybooks.service;
+
+/*
+ * Created by agent, on 18/10/2026 - 05:11.
+ */
+
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.CatalogStats;
+import it.terrinoni.terrybooks.repository.CatalogStatsRepository;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Catalog statistics service class. Statistics are pre-aggregated counters, updated incrementally
+ * by every single book write, so reading them does not scan the books collection. Counters may
+ * drift, e.g. when the counter update fails after the book write or when bulk writes change books
+ * that are not known to the service; a periodic reconciliation corrects the drifted counters
+ * against a full aggregation of the collection, and runs sooner whenever a drift is known.
+ */
+@Service
+public class CatalogStatsService {
+
+  private static final Logger log = LoggerFactory.getLogger(CatalogStatsService.class);
+
+  @Autowired
+  CatalogStatsRepository statsRepository;
+
+  @Value("${custom.stats.reconcile.interval:3600000}")
+  private long reconcileInterval;
+
+  // Bumped by every counter update, so a reconciliation can detect the updates it has raced with
+  private final AtomicLong writeSequence = new AtomicLong();
+  private final AtomicInteger reconciliationHolds = new AtomicInteger();
+
+  private volatile boolean stale;
+  private volatile long lastReconciliation;
+
+  /**
+   * Service method to retrieve the catalog statistics.
+   *
+   * @return the catalog statistics
+   */
+  public CatalogStats getStats() {
+    return CatalogStats.of(statsRepository.findAll());
+  }
+
+  /**
+   * Count the new books.
+   *
+   * @param books books stored
+   */
+  public void booksInserted(Collection<Book> books) {
+    Map<String, Long> deltas = new HashMap<>();
+    books.forEach(b -> count(deltas, b, 1));
+    apply(deltas);
+  }
+
+  /**
+   * Count the new book.
+   *
+   * @param book book stored
+   */
+  public void bookInserted(Book book) {
+    booksInserted(Collections.singletonList(book));
+  }
+
+  /**
+   * Move the book between the counters whose keys have changed with the update.
+   *
+   * @param previous book before the update, loaded with its authors and publish date at least
+   * @param updated  book after the update
+   */
+  public void bookUpdated(Book previous, Book updated) {
+    Map<String, Long> deltas = new HashMap<>();
+    count(deltas, previous, -1);
+    count(deltas, updated, 1);
+    deltas.values().removeIf(delta -> delta == 0);
+    apply(deltas);
+  }
+
+  /**
+   * Remove the book from its counters.
+   *
+   * @param book book removed
+   */
+  public void bookDeleted(Book book) {
+    Map<String, Long> deltas = new HashMap<>();
+    count(deltas, book, -1);
+    apply(deltas);
+  }
+
+  /**
+   * Report that books have been written without updating their counters, so the counters are
+   * reconciled as soon as possible.
+   */
+  public void markStale() {
+    stale = true;
+  }
+
+  /**
+   * Suspend the reconciliation until released, e.g. while a migration rewrites fields that the
+   * aggregation of the collection does not read in the same way as the counter updates.
+   */
+  public void holdReconciliation() {
+    reconciliationHolds.incrementAndGet();
+  }
+
+  /**
+   * Release a hold of the reconciliation; once every hold is released, the counters are reconciled
+   * at the next check.
+   */
+  public void releaseReconciliation() {
+    if (reconciliationHolds.decrementAndGet() == 0) {
+      stale = true;
+    }
+  }
+
+  /**
+   * Reconcile the counters if they are known to be stale or if the reconciliation interval has
+   * elapsed since the last one; the counters are reconciled at startup too, unless the
+   * reconciliation is held.
+   */
+  @Scheduled(fixedDelayString = "${custom.stats.reconcile.checkinterval:60000}")
+  public void reconcileIfDue() {
+    if (reconciliationHolds.get() > 0) {
+      return;
+    }
+    if (stale || System.currentTimeMillis() - lastReconciliation >= reconcileInterval) {
+      reconcile();
+    }
+  }
+
+  /**
+   * Correct every drifted counter by the difference from the value computed by a full
+   * aggregation; the corrections are applied as increments, so the ones applied concurrently are
+   * never overwritten. A book written while the aggregation runs may be counted by the stored
+   * counters only, so if any counter has been updated in the meantime the corrections are applied
+   * anyway and the counters are reconciled again at the next check.
+   */
+  public void reconcile() {
+    stale = false;
+    Map<String, Long> corrections = new HashMap<>();
+    long sequence = writeSequence.get();
+    try {
+      Map<String, Long> actual = statsRepository.aggregate();
+      Map<String, Long> stored = statsRepository.findAll();
+
+      Set<String> keys = new HashSet<>(actual.keySet());
+      keys.addAll(stored.keySet());
+      for (String key : keys) {
+        long correction = actual.getOrDefault(key, 0L) - stored.getOrDefault(key, 0L);
+        if (correction != 0) {
+          corrections.put(key, correction);
+        }
+      }
+      if (!corrections.isEmpty()) {
+        statsRepository.increment(corrections);
+      }
+      statsRepository.removeEmpty();
+    } catch (RuntimeException rEx) {
+      log.error("Unable to reconcile the catalog statistics, exception: {}", rEx.getMessage());
+      stale = true;
+      return;
+    }
+
+    lastReconciliation = System.currentTimeMillis();
+    if (writeSequence.get() != sequence) {
+      stale = true;
+      log.info("Catalog statistics reconciled, {} counters corrected; counters updated meanwhile, "
+          + "reconciled again at the next check", corrections.size());
+      return;
+    }
+    log.info("Catalog statistics reconciled, {} counters corrected", corrections.size());
+  }
+
+  private static void count(Map<String, Long> deltas, Book book, long delta) {
+    CatalogStats.keysOf(book).forEach(key -> deltas.merge(key, delta, Long::sum));
+  }
+
+  private void apply(Map<String, Long> deltas) {
+    if (deltas.isEmpty()) {
+      return;
+    }
+    try {
+      statsRepository.increment(deltas);
+    } catch (RuntimeException rEx) {
+      // The book has been written anyway, the counters are corrected by the reconciliation
+      log.warn("Unable to update the catalog statistics, exception: {}", rEx.getMessage());
+      stale = true;
+    }
+    writeSequence.incrementAndGet();
+  }
+}
@@ -0,0 +1,196 @@
+package it.terrinoni.terrybooks.service;
+
+/*
+ * Created by agent, on 18/10/2026 - 04:12.
+ */
+
+import com.mongodb.AggregationOptions;
+import com.mongodb.BasicDBObject;
+import com.mongodb.Cursor;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+import it.terrinoni.terrybooks.config.BookIndexProperties;
+import it.terrinoni.terrybooks.config.BookIndexProperties.IndexDeclaration;
+import it.terrinoni.terrybooks.model.Book;
+import it.terrinoni.terrybooks.model.IndexUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Service;
+
+/**
+ * Index service class; it reconciles the indexes of the book collection with the declared index set
+ * and reports their usage. Reconciliation runs in background once the application is ready: missing
+ * indexes are created with background builds, while undeclared ones are only reported, so that they
+ * can be reviewed and dropped by hand.
+ */
+@Service
+@Profile("!embedded")
+public class IndexService implements ApplicationListener<ApplicationReadyEvent> {
+
+  private static final Logger log = LoggerFactory.getLogger(IndexService.class);
+  private static final String PRIMARY_KEY_INDEX = "_id_";
+
+  @Autowired
+  MongoTemplate mongoTemplate;
+
+  @Autowired
+  BookIndexProperties indexProperties;
+
+  @Override
+  public void onApplicationEvent(ApplicationReadyEvent event) {
+    Thread worker = new Thread(this::reconcile, "book-index-reconciliation");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Service method to reconcile the indexes of the book collection with the declared index set.
+   */
+  public void reconcile() {
+    List<DBObject> existing;
+    try {
+      existing = bookCollection().getIndexInfo();
+    } catch (MongoException mEx) {
+      log.error("Unable to read the book collection indexes, exception: {}", mEx.getMessage());
+      return;
+    }
+
+    for (IndexDeclaration declaration : indexProperties.getIndexes()) {
+      if (findExisting(existing, declaration) != null) {
+        continue;
+      }
+
+      Index index = new Index().named(declaration.getName()).background();
+      declaration.getKeyMap().forEach((field, direction) -> index
+          .on(field, direction < 0 ? Direction.DESC : Direction.ASC));
+      log.info("Creating missing book index {} on {}", declaration.getName(),
+          declaration.getKeys());
+      try {
+        mongoTemplate.indexOps(Book.class).ensureIndex(index);
+      } catch (RuntimeException rEx) {
+        log.error("Unable to create book index {}, exception: {}", declaration.getName(),
+            rEx.getMessage());
+      }
+    }
+
+    for (DBObject index : existing) {
+      if (!PRIMARY_KEY_INDEX.equals(index.get("name")) && findDeclaration(index) == null) {
+        log.warn("Undeclared book index found: {} on {}", index.get("name"), index.get("key"));
+      }
+    }
+
+    log.info("Book index reconciliation completed");
+  }
+
+  /**
+   * Service method to retrieve the usage statistics of the book collection indexes, including the
+   * declared indexes that are still missing.
+   *
+   * @return the usage statistics of every existing or declared index
+   */
+  public List<IndexUsage> getIndexUsage() {
+    log.debug("Retrieve the book index usage statistics");
+
+    List<IndexUsage> usages = new ArrayList<>();
+    try {
+      DBObject indexStats = new BasicDBObject("$indexStats", new BasicDBObject());
+      // Results are always returned through a cursor by the 3.6 driver
+      AggregationOptions options = AggregationOptions.builder().build();
+      try (Cursor cursor = bookCollection()
+          .aggregate(Collections.singletonList(indexStats), options)) {
+        while (cursor.hasNext()) {
+          DBObject stats = cursor.next();
+          IndexUsage usage = new IndexUsage((String) stats.get("name"),
+              toKeyMap((DBObject) stats.get("key")),
+              PRIMARY_KEY_INDEX.equals(stats.get("name")) || findDeclaration(stats) != null,
+              true);
+          DBObject accesses = (DBObject) stats.get("accesses");
+          usage.setAccesses(((Number) accesses.get("ops")).longValue());
+          usage.setSince((Date) accesses.get("since"));
+          usages.add(usage);
+        }
+      }
+    } catch (MongoException mEx) {
+      String msg = String
+          .format("Unable to retrieve the book index usage statistics, exception: %s",
+              mEx.getMessage());
+      log.error(msg);
+      throw new RuntimeException(msg, mEx);
+    }
+
+    for (IndexDeclaration declaration : indexProperties.getIndexes()) {
+      boolean present = usages.stream().anyMatch(u -> matches(declaration, u.getKeys()));
+      if (!present) {
+        usages.add(new IndexUsage(declaration.getName(),
+            new LinkedHashMap<>(declaration.getKeyMap()), true, false));
+      }
+    }
+
+    log.info("{} book indexes found", usages.size());
+
+    return usages;
+  }
+
+  // PRIVATE INTERNAL METHODS
+
+  private DBCollection bookCollection() {
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Book.class));
+  }
+
+  private DBObject findExisting(List<DBObject> existing, IndexDeclaration declaration) {
+    return existing.stream()
+        .filter(i -> matches(declaration, toKeyMap((DBObject) i.get("key"))))
+        .findFirst().orElse(null);
+  }
+
+  private IndexDeclaration findDeclaration(DBObject index) {
+    Map<String, Object> keys = toKeyMap((DBObject) index.get("key"));
+    return indexProperties.getIndexes().stream()
+        .filter(d -> matches(d, keys))
+        .findFirst().orElse(null);
+  }
+
+  /**
+   * Private internal method that checks whether the index keys match with the declaration; the
+   * order of the keys is relevant, the index name is not.
+   */
+  private static boolean matches(IndexDeclaration declaration, Map<String, Object> keys) {
+    Map<String, Integer> declared = declaration.getKeyMap();
+    if (declared.size() != keys.size()) {
+      return false;
+    }
+
+    List<Entry<String, Object>> actual = new ArrayList<>(keys.entrySet());
+    int i = 0;
+    for (Entry<String, Integer> key : declared.entrySet()) {
+      Entry<String, Object> other = actual.get(i++);
+      if (!key.getKey().equals(other.getKey()) || !(other.getValue() instanceof Number)
+          || Integer.signum(((Number) other.getValue()).intValue()) != Integer
+          .signum(key.getValue())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Map<String, Object> toKeyMap(DBObject key) {
+    Map<String, Object> keyMap = new LinkedHashMap<>();
+    key.keySet().forEach(k -> keyMap.put(k, key.get(k)));
+    return keyMap;
+  }
+}
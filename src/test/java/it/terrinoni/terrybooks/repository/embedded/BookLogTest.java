@@ -0,0 +1,147 @@
+package it.terrinoni.terrybooks.repository.embedded;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BookLogTest {
+
+  private static final int SEGMENT_SIZE = 64;
+  private static final int HEADER_SIZE = 9;
+  private static final byte PUT = 1;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path directory;
+
+  @Before
+  public void setUp() {
+    directory = folder.getRoot().toPath();
+  }
+
+  @Test
+  public void replaysAppendedRecords() throws IOException {
+    try (BookLog bookLog = open(new ArrayList<>())) {
+      bookLog.append(PUT, bytes("first"));
+      bookLog.append(PUT, bytes("second"));
+    }
+
+    List<String> replayed = new ArrayList<>();
+    open(replayed).close();
+    assertEquals(Arrays.asList("first", "second"), replayed);
+  }
+
+  @Test
+  public void discardsRecordWithChecksumMismatch() throws IOException {
+    long torn;
+    try (BookLog bookLog = open(new ArrayList<>())) {
+      bookLog.append(PUT, bytes("first"));
+      bookLog.append(PUT, bytes("second"));
+      torn = bookLog.append(PUT, bytes("third"));
+    }
+    // Payload not fully written before the crash
+    writeByte(torn, HEADER_SIZE, (byte) 'X');
+
+    assertRecoveredAt(torn, Arrays.asList("first", "second"));
+  }
+
+  @Test
+  public void discardsRecordExceedingTheSegment() throws IOException {
+    long torn;
+    try (BookLog bookLog = open(new ArrayList<>())) {
+      bookLog.append(PUT, bytes("first"));
+      torn = bookLog.append(PUT, bytes("second"));
+    }
+    // Length torn, pointing past the end of the segment
+    writeByte(torn, 0, (byte) 0x7f);
+
+    assertRecoveredAt(torn, Arrays.asList("first"));
+  }
+
+  @Test
+  public void rollsOverToNewSegments() throws IOException {
+    List<Long> addresses = new ArrayList<>();
+    try (BookLog bookLog = open(new ArrayList<>())) {
+      for (int i = 0; i < 6; i++) {
+        addresses.add(bookLog.append(PUT, bytes("record-" + i)));
+      }
+    }
+    assertTrue(Files.exists(segmentPath(1)));
+
+    long torn = addresses.get(5);
+    writeByte(torn, HEADER_SIZE, (byte) 'X');
+
+    assertRecoveredAt(torn,
+        Arrays.asList("record-0", "record-1", "record-2", "record-3", "record-4"));
+  }
+
+  private void assertRecoveredAt(long torn, List<String> expected) throws IOException {
+    List<String> replayed = new ArrayList<>();
+    try (BookLog bookLog = open(replayed)) {
+      assertEquals(expected, replayed);
+      assertArrayEquals(new byte[HEADER_SIZE], readHeader(torn));
+
+      // The next record takes the place of the torn one
+      assertEquals(torn, bookLog.append(PUT, bytes("after")));
+      assertEquals("after", string(bookLog.read(torn)));
+    }
+
+    List<String> reopened = new ArrayList<>(expected);
+    reopened.add("after");
+    replayed.clear();
+    open(replayed).close();
+    assertEquals(reopened, replayed);
+  }
+
+  private BookLog open(List<String> replayed) throws IOException {
+    BookLog bookLog = new BookLog(directory, SEGMENT_SIZE, false);
+    bookLog.open((address, type, payload) -> replayed.add(string(payload)));
+    return bookLog;
+  }
+
+  private void writeByte(long address, int offset, byte value) throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(segmentOf(address).toFile(), "rw")) {
+      file.seek((int) address + offset);
+      file.write(value);
+    }
+  }
+
+  private byte[] readHeader(long address) throws IOException {
+    byte[] header = new byte[HEADER_SIZE];
+    try (RandomAccessFile file = new RandomAccessFile(segmentOf(address).toFile(), "r")) {
+      file.seek((int) address);
+      file.readFully(header);
+    }
+    return header;
+  }
+
+  private Path segmentOf(long address) {
+    return segmentPath((int) (address >>> 32));
+  }
+
+  private Path segmentPath(int index) {
+    return directory.resolve(String.format("books-%05d.seg", index));
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String string(byte[] payload) {
+    return new String(payload, StandardCharsets.UTF_8);
+  }
+}